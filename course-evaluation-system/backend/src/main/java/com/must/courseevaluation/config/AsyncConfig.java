@@ -1,7 +1,10 @@
 package com.must.courseevaluation.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -10,9 +13,28 @@ import java.util.concurrent.Executor;
 @Configuration
 @EnableAsync
 public class AsyncConfig {
+
+    @Autowired
+    private PasswordHashingProperties passwordHashingProperties;
     
+    // 与Spring Boot共用同一开关：开启后Tomcat请求线程、@Scheduled和@Async都使用虚拟线程
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    // 虚拟线程模式下@Async任务的最大并发数，防止无界并发压垮数据库连接池和SMTP
+    @Value("${async.virtual.concurrency-limit:200}")
+    private int virtualConcurrencyLimit;
+
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+        if (virtualThreadsEnabled) {
+            // 每个任务一个虚拟线程，阻塞在数据库、Redis、SMTP上时不占用平台线程
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("async-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualConcurrencyLimit);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5);
         executor.setMaxPoolSize(10);
@@ -22,4 +44,20 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * 登录密码校验线程池：线程数有限，队列满时拒绝而不是在Web线程上执行
+     * 哈希计算是CPU密集型任务，虚拟线程模式下仍使用固定数量的平台线程
+     */
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(passwordHashingProperties.getVerifyThreads());
+        executor.setMaxPoolSize(passwordHashingProperties.getVerifyThreads());
+        executor.setQueueCapacity(passwordHashingProperties.getVerifyQueueCapacity());
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new java.util.concurrent.ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -118,5 +118,6 @@ public class DataInitializer implements CommandLineRunner {
                 }
             }
         }
+        // 评分聚合的回填由迁移 V7__rating_aggregate_backfill 完成
     }
 } 
\ No newline at end of file
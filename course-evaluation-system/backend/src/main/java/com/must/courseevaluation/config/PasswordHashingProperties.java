@@ -0,0 +1,30 @@
+package com.must.courseevaluation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 密码哈希配置
+ * 新密码使用algorithm指定的算法编码；旧算法或旧参数生成的哈希在用户下次登录成功时自动重新编码。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "password-hashing")
+public class PasswordHashingProperties {
+
+    // 新密码使用的算法：bcrypt 或 pbkdf2
+    private String algorithm = "bcrypt";
+
+    // BCrypt工作因子，每加1耗时翻倍
+    private int bcryptStrength = 12;
+
+    // PBKDF2-HMAC-SHA256迭代次数
+    private int pbkdf2Iterations = 310_000;
+
+    // 登录时密码校验专用线程池，默认与CPU核数相同，避免哈希计算占满Web线程
+    private int verifyThreads = Runtime.getRuntime().availableProcessors();
+
+    // 等待校验的登录请求上限，超出时直接返回503
+    private int verifyQueueCapacity = 200;
+}
@@ -0,0 +1,49 @@
+package com.must.courseevaluation.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 限流配置，按路由分组设置不同的速率
+ * 请求按groups的声明顺序匹配第一个命中的分组，未命中任何分组的请求不限流
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    // 本地令牌租约：每次从Redis预取的许可数上限，1表示每个请求都访问Redis
+    // 实际批量还受分组速率限制：不超过leaseTtl内恢复的许可数（limit * leaseTtl / period）
+    private int localBatchSize = 10;
+    
+    // 租约有效期，过期未用完的许可作废，保证多节点间全局限额近似准确
+    private Duration leaseTtl = Duration.ofSeconds(5);
+    
+    // 本地最多保留的客户端租约数，以及空闲多久后淘汰
+    private long localMaxClients = 100_000;
+    
+    private Duration localIdleTimeout = Duration.ofMinutes(2);
+    
+    private List<Group> groups = new ArrayList<>();
+    
+    @Data
+    public static class Group {
+        
+        private String name;
+        
+        // Ant风格路径，不含context-path
+        private List<String> patterns = new ArrayList<>();
+        
+        // 每个周期允许的请求数（同时也是允许的突发量）
+        private int limit = 60;
+        
+        private Duration period = Duration.ofMinutes(1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.must.courseevaluation.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.must.courseevaluation.security.UserDetailsCache;
+import com.must.courseevaluation.service.CacheService;
+import com.must.courseevaluation.service.CatalogAutocompleteIndex;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+@Configuration
+public class RedisConfig {
+    
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new GenericJackson2JsonRedisSerializer(cacheObjectMapper()));
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer(cacheObjectMapper()));
+        return template;
+    }
+    
+    /**
+     * 缓存值的JSON序列化：写入类型信息以便还原DTO，类型白名单仅限本项目和JDK集合/基础类型
+     */
+    private ObjectMapper cacheObjectMapper() {
+        BasicPolymorphicTypeValidator typeValidator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.must.courseevaluation.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.lang.")
+                .allowIfSubType("java.time.")
+                .build();
+        
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.activateDefaultTyping(typeValidator, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        return mapper;
+    }
+    
+    /**
+     * 订阅缓存失效广播，使其他节点的本地缓存和自动补全索引同步更新
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheService cacheService,
+                                                                            UserDetailsCache userDetailsCache,
+                                                                            CatalogAutocompleteIndex autocompleteIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheService, new ChannelTopic(CacheService.INVALIDATION_CHANNEL));
+        container.addMessageListener(userDetailsCache, new ChannelTopic(CacheService.INVALIDATION_CHANNEL));
+        container.addMessageListener(autocompleteIndex, new ChannelTopic(CacheService.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
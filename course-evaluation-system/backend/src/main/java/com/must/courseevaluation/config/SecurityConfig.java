@@ -1,16 +1,37 @@
 package com.must.courseevaluation.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 public class SecurityConfig {
-    
+
+    @Autowired
+    private PasswordHashingProperties passwordHashingProperties;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        // 使用更强的BCrypt加密，增加工作因子
-        return new BCryptPasswordEncoder(12);
+        String algorithm = passwordHashingProperties.getAlgorithm();
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(passwordHashingProperties.getBcryptStrength()));
+        encoders.put("pbkdf2", new Pbkdf2PasswordEncoder("", 16, passwordHashingProperties.getPbkdf2Iterations(),
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalArgumentException("不支持的密码哈希算法: " + algorithm);
+        }
+
+        // 新哈希带{算法}前缀；已有的哈希没有前缀，按BCrypt校验，登录成功后自动升级
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
-}
\ No newline at end of file
+}
@@ -8,23 +8,30 @@ import com.must.courseevaluation.dto.auth.LoginRequest;
 import com.must.courseevaluation.dto.auth.RegisterRequest;
 import com.must.courseevaluation.model.User;
 import com.must.courseevaluation.security.UserDetailsImpl;
+import com.must.courseevaluation.security.UserDetailsServiceImpl;
 import com.must.courseevaluation.security.jwt.JwtUtils;
 import com.must.courseevaluation.service.UserService;
 import com.must.courseevaluation.service.VerificationCodeService;
+import com.must.courseevaluation.service.VerificationEmailThrottle;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -41,6 +48,13 @@ public class AuthController {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private Executor passwordHashExecutor;
+
     @Autowired
     private InputValidationUtils inputValidationUtils;
 
@@ -50,8 +64,11 @@ public class AuthController {
     @Autowired
     private AsyncEmailService asyncEmailService;
 
+    @Autowired
+    private VerificationEmailThrottle verificationEmailThrottle;
+
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         logger.info("尝试登录用户: {}", loginRequest.getUsername());
         
         // 输入验证
@@ -60,14 +77,27 @@ public class AuthController {
             logger.warn("检测到恶意登录尝试: {}", loginRequest.getUsername());
             Map<String, String> response = new HashMap<>();
             response.put("message", "输入包含非法字符");
-            return ResponseEntity.badRequest().body(response);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(response));
         }
         
+        // 密码校验放到专用线程池执行，Web线程立即释放；线程池排满时快速拒绝
+        try {
+            return CompletableFuture.supplyAsync(() -> doAuthenticate(loginRequest), passwordHashExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("登录请求过多，拒绝登录: {}", loginRequest.getUsername());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("message", "登录请求过多，请稍后重试")));
+        }
+    }
+
+    private ResponseEntity<?> doAuthenticate(LoginRequest loginRequest) {
         try {
             // 先检查用户是否存在及状态
             try {
-                User user = userService.findByUsername(loginRequest.getUsername());
-                if (!user.isActive()) {
+                // 经缓存加载，随后认证管理器再次加载同一用户时直接命中缓存
+                UserDetailsImpl user = userDetailsService.loadUserByUsername(loginRequest.getUsername());
+                if (!user.isEnabled()) {
                     logger.warn("用户尝试登录但账户已被停用: {}", loginRequest.getUsername());
                     Map<String, String> response = new HashMap<>();
                     response.put("message", "账户已被停用，请联系管理员");
@@ -77,10 +107,10 @@ public class AuthController {
                 // 用户不存在的情况下，继续走正常认证流程，会抛出相应的认证异常
             }
             
+            // 在校验线程上执行，不写入SecurityContextHolder（会话为无状态，登录结果只通过JWT返回）
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
             String jwt = jwtUtils.generateJwtToken(authentication);
             
             UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
@@ -159,6 +189,13 @@ public class AuthController {
             return ResponseEntity.badRequest().body(Map.of("message", "错误: 邮箱格式不正确!"));
         }
         
+        // 同一邮箱冷却期内不再发送（按IP的频率限制由限流拦截器负责）
+        if (!verificationEmailThrottle.tryAcquire(email)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(verificationEmailThrottle.getCooldown().toSeconds()))
+                    .body(Map.of("message", "验证码发送过于频繁，请稍后再试"));
+        }
+        
         try {
             // 生成随机验证码
             String verificationCode = verificationCodeService.generateVerificationCode();
@@ -166,13 +203,19 @@ public class AuthController {
             // 存储验证码
             verificationCodeService.storeVerificationCode(email, verificationCode);
             
-            // 异步发送验证码邮件
-            asyncEmailService.sendVerificationCodeEmailAsync(email, verificationCode);
+            // 写入发件箱由后台投递，积压过多时直接拒绝，不在请求线程上发送
+            if (!asyncEmailService.submitVerificationCodeEmail(email, verificationCode)) {
+                verificationEmailThrottle.release(email);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .body(Map.of("message", "邮件服务繁忙，请稍后重试"));
+            }
             
             logger.info("验证码已发送到邮箱: {}", email);
             
             return ResponseEntity.ok(Map.of("message", "验证码已发送，请查收邮箱"));
         } catch (Exception e) {
+            verificationEmailThrottle.release(email);
             logger.error("发送验证码失败: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("message", "发送验证码失败: " + e.getMessage()));
         }
@@ -2,9 +2,13 @@ package com.must.courseevaluation.controller;
 
 import com.must.courseevaluation.security.InputValidationUtils;
 import com.must.courseevaluation.service.CacheService;
+import com.must.courseevaluation.dto.CatalogPageDto;
+import com.must.courseevaluation.dto.CourseCatalogQuery;
 import com.must.courseevaluation.dto.CourseDto;
 import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.service.CourseCatalogService;
 import com.must.courseevaluation.service.CourseService;
+import com.must.courseevaluation.service.RatingAggregateService;
 import com.must.courseevaluation.service.ReviewService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,59 +37,61 @@ public class CourseController {
     @Autowired
     private CacheService cacheService;
 
+    @Autowired
+    private CourseCatalogService courseCatalogService;
+
+    @Autowired
+    private RatingAggregateService ratingAggregateService;
+
     @GetMapping
     public ResponseEntity<List<CourseDto>> getAllCourses() {
-        // 尝试从缓存获取
-        Object cachedCourses = cacheService.getCachedFaculties(); // 这里应该是课程缓存
-        if (cachedCourses != null) {
-            return ResponseEntity.ok((List<CourseDto>) cachedCourses);
-        }
-        
-        List<CourseDto> courses = courseService.getAllCourses();
-        
-        // 缓存结果
-        cacheService.cacheFaculties(courses); // 这里应该是课程缓存
-        
-        return ResponseEntity.ok(courses);
+        // 优先从缓存获取，未命中时查询并缓存结果；评分不随列表缓存，每次按聚合行填入
+        List<CourseDto> courses = cacheService.getOrLoadCourseList(CacheService.allCoursesScope(),
+                () -> courseService.getAllCourses());
+        return ResponseEntity.ok(ratingAggregateService.withCourseRatings(courses));
+    }
+
+    /**
+     * 课程目录：按院系、教师、类型、学分、最低评分过滤，按评分、评价数或课程代码排序，游标分页
+     */
+    @GetMapping("/catalog")
+    public ResponseEntity<CatalogPageDto<CourseDto>> getCatalog(CourseCatalogQuery query) {
+        return ResponseEntity.ok(courseCatalogService.query(query));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<CourseDto> getCourseById(@PathVariable Long id) {
-        // 尝试从缓存获取
-        Object cachedCourse = cacheService.getCachedCourse(id);
-        if (cachedCourse != null) {
-            return ResponseEntity.ok((CourseDto) cachedCourse);
-        }
-        
-        CourseDto course = courseService.getCourseById(id);
-        
-        // 缓存结果
-        cacheService.cacheCourse(id, course);
-        
+        // 缓存未命中或过期时只有一个请求回源，其余请求等待或使用旧值
+        CourseDto course = cacheService.getOrLoadCourse(id, () -> courseService.getCourseById(id));
         return ResponseEntity.ok(course);
     }
 
     @GetMapping("/faculty/{facultyId}")
     public ResponseEntity<List<CourseDto>> getCoursesByFaculty(@PathVariable Long facultyId) {
-        List<CourseDto> courses = courseService.getCoursesByFaculty(facultyId);
-        return ResponseEntity.ok(courses);
+        String scope = CacheService.facultyCoursesScope(facultyId);
+        List<CourseDto> courses = cacheService.getOrLoadCourseList(scope, () -> courseService.getCoursesByFaculty(facultyId));
+        return ResponseEntity.ok(ratingAggregateService.withCourseRatings(courses));
     }
 
     @GetMapping("/teacher/{teacherId}")
     public ResponseEntity<List<CourseDto>> getCoursesByTeacher(@PathVariable Long teacherId) {
-        List<CourseDto> courses = courseService.getCoursesByTeacher(teacherId);
-        return ResponseEntity.ok(courses);
+        String scope = CacheService.teacherCoursesScope(teacherId);
+        List<CourseDto> courses = cacheService.getOrLoadCourseList(scope, () -> courseService.getCoursesByTeacher(teacherId));
+        return ResponseEntity.ok(ratingAggregateService.withCourseRatings(courses));
     }
 
     @GetMapping("/type/{type}")
     public ResponseEntity<List<CourseDto>> getCoursesByType(@PathVariable String type) {
+        Course.CourseType courseType;
         try {
-            Course.CourseType courseType = Course.CourseType.valueOf(type);
-            List<CourseDto> courses = courseService.getCoursesByType(courseType);
-            return ResponseEntity.ok(courses);
+            courseType = Course.CourseType.valueOf(type);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
+
+        String scope = CacheService.typeCoursesScope(courseType.name());
+        List<CourseDto> courses = cacheService.getOrLoadCourseList(scope, () -> courseService.getCoursesByType(courseType));
+        return ResponseEntity.ok(ratingAggregateService.withCourseRatings(courses));
     }
 
     @GetMapping("/search")
@@ -99,18 +105,15 @@ public class CourseController {
         // 清理输入
         String cleanKeyword = inputValidationUtils.sanitizeInput(keyword);
         
-        List<CourseDto> courses = courseService.searchCourses(keyword);
-        return ResponseEntity.ok(courses);
+        List<CourseDto> courses = cacheService.getOrLoadCourseSearch(keyword, () -> courseService.searchCourses(keyword));
+        return ResponseEntity.ok(ratingAggregateService.withCourseRatings(courses));
     }
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<CourseDto> createCourse(@Valid @RequestBody CourseDto courseDto) {
+        // 课程列表缓存由CourseService在事务提交后清除
         CourseDto createdCourse = courseService.createCourse(courseDto);
-       
-       // 清除相关缓存
-       cacheService.evictFacultiesCache();
-       
         return new ResponseEntity<>(createdCourse, HttpStatus.CREATED);
     }
 
@@ -122,7 +125,6 @@ public class CourseController {
         
         // 清除相关缓存
         cacheService.evictCourseCache(id);
-        cacheService.evictFacultiesCache();
         
         return ResponseEntity.ok(updatedCourse);
     }
@@ -134,24 +136,14 @@ public class CourseController {
         
         // 清除相关缓存
         cacheService.evictCourseCache(id);
-        cacheService.evictFacultiesCache();
         
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/{id}/ratings")
     public ResponseEntity<Map<String, Object>> getCourseRatings(@PathVariable Long id) {
-        // 尝试从缓存获取评分统计
-        Object cachedRating = cacheService.getCachedRating("course", id);
-        if (cachedRating != null) {
-            return ResponseEntity.ok((Map<String, Object>) cachedRating);
-        }
-        
-        Map<String, Object> ratings = reviewService.getCourseRatings(id);
-        
-        // 缓存评分统计
-        cacheService.cacheRating("course", id, ratings);
-        
+        // 缓存未命中或过期时只有一个请求回源，其余请求等待或使用旧值
+        Map<String, Object> ratings = cacheService.getOrLoadRating("course", id, () -> reviewService.getCourseRatings(id));
         return ResponseEntity.ok(ratings);
     }
 } 
\ No newline at end of file
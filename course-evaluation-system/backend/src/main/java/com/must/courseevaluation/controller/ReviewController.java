@@ -1,5 +1,7 @@
 package com.must.courseevaluation.controller;
 
+import com.must.courseevaluation.dto.BatchDeleteResultDto;
+import com.must.courseevaluation.dto.CursorPageDto;
 import com.must.courseevaluation.dto.ReviewDto;
 import com.must.courseevaluation.model.Review;
 import com.must.courseevaluation.security.UserDetailsImpl;
@@ -12,6 +14,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -48,6 +51,20 @@ public class ReviewController {
         return ResponseEntity.ok(reviews);
     }
     
+    @GetMapping("/course/{courseId}/feed")
+    public ResponseEntity<CursorPageDto<ReviewDto>> getReviewFeedByCourse(@PathVariable Long courseId,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(reviewService.getReviewFeedByCourse(courseId, cursor, size));
+    }
+    
+    @GetMapping("/teacher/{teacherId}/feed")
+    public ResponseEntity<CursorPageDto<ReviewDto>> getReviewFeedByTeacher(@PathVariable Long teacherId,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(reviewService.getReviewFeedByTeacher(teacherId, cursor, size));
+    }
+    
     @GetMapping("/user/{userId}")
     @PreAuthorize("@userSecurity.isUserSelf(#userId, principal) or hasRole('ROLE_ADMIN')")
     public ResponseEntity<List<ReviewDto>> getReviewsByUser(@PathVariable Long userId) {
@@ -94,12 +111,12 @@ public class ReviewController {
     
     @PostMapping("/batch-delete")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
-    public ResponseEntity<Void> batchDeleteReviews(@RequestBody Map<String, List<Long>> payload) {
+    public ResponseEntity<BatchDeleteResultDto> batchDeleteReviews(@RequestBody Map<String, List<Long>> payload) {
         List<Long> ids = payload.get("ids");
-        if (ids != null && !ids.isEmpty()) {
-            ids.forEach(reviewService::deleteReview);
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.ok(new BatchDeleteResultDto(0, Collections.emptyList()));
         }
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.ok(reviewService.deleteReviews(ids));
     }
     
     @GetMapping("/course/{courseId}/ratings")
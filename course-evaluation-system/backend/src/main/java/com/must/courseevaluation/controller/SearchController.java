@@ -0,0 +1,68 @@
+package com.must.courseevaluation.controller;
+
+import com.must.courseevaluation.dto.AutocompleteSuggestionDto;
+import com.must.courseevaluation.dto.CourseDto;
+import com.must.courseevaluation.dto.SearchHitDto;
+import com.must.courseevaluation.dto.SearchPageDto;
+import com.must.courseevaluation.dto.TeacherDto;
+import com.must.courseevaluation.security.InputValidationUtils;
+import com.must.courseevaluation.service.CatalogAutocompleteIndex;
+import com.must.courseevaluation.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/search")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private CatalogAutocompleteIndex autocompleteIndex;
+
+    @Autowired
+    private InputValidationUtils inputValidationUtils;
+
+    /**
+     * 搜索框输入时的自动补全，完全在内存中完成，不访问数据库
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<AutocompleteSuggestionDto>> autocomplete(
+            @RequestParam(name = "q", defaultValue = "") String query,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(autocompleteIndex.suggest(query, limit));
+    }
+
+    @GetMapping("/courses")
+    public ResponseEntity<SearchPageDto<SearchHitDto<CourseDto>>> searchCourses(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (isUnsafe(keyword)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(searchService.searchCourses(keyword, page, size));
+    }
+
+    @GetMapping("/teachers")
+    public ResponseEntity<SearchPageDto<SearchHitDto<TeacherDto>>> searchTeachers(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        if (isUnsafe(keyword)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(searchService.searchTeachers(keyword, page, size));
+    }
+
+    private boolean isUnsafe(String keyword) {
+        return inputValidationUtils.containsSqlInjection(keyword) || inputValidationUtils.containsXss(keyword);
+    }
+}
@@ -0,0 +1,45 @@
+package com.must.courseevaluation.controller;
+
+import com.must.courseevaluation.dto.SensitiveWordDto;
+import com.must.courseevaluation.service.SensitiveWordService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/sensitive-words")
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+public class SensitiveWordController {
+    
+    @Autowired
+    private SensitiveWordService sensitiveWordService;
+    
+    @GetMapping
+    public ResponseEntity<List<SensitiveWordDto>> getAllSensitiveWords() {
+        return ResponseEntity.ok(sensitiveWordService.findAll());
+    }
+    
+    @PostMapping
+    public ResponseEntity<SensitiveWordDto> createSensitiveWord(@Valid @RequestBody SensitiveWordDto sensitiveWordDto) {
+        SensitiveWordDto created = sensitiveWordService.create(sensitiveWordDto);
+        return new ResponseEntity<>(created, HttpStatus.CREATED);
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSensitiveWord(@PathVariable Long id) {
+        sensitiveWordService.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @PostMapping("/reload")
+    public ResponseEntity<Void> reloadSensitiveWords() {
+        sensitiveWordService.reloadIfChanged();
+        return ResponseEntity.noContent().build();
+    }
+}
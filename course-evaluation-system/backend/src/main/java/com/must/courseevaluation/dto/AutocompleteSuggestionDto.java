@@ -0,0 +1,27 @@
+package com.must.courseevaluation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 搜索框自动补全建议，type为 course / teacher / faculty
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompleteSuggestionDto {
+
+    private String type;
+
+    private Long id;
+
+    private String label;
+
+    // 课程为课程代码，教师为职称，院系为空
+    private String subtitle;
+
+    private long reviewCount;
+
+    private double averageRating;
+}
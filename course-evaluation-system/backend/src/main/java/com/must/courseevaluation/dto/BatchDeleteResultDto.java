@@ -0,0 +1,20 @@
+package com.must.courseevaluation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量删除结果，missingIds为请求中不存在（或已被删除）的ID
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDeleteResultDto {
+    
+    private int deletedCount;
+    
+    private List<Long> missingIds;
+}
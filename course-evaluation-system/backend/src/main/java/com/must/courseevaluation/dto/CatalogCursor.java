@@ -0,0 +1,43 @@
+package com.must.courseevaluation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 课程目录的游标，记录排序方式以及上一页最后一条记录的排序值和ID
+ */
+@Data
+@AllArgsConstructor
+public class CatalogCursor {
+    
+    private String sort;
+    
+    private boolean descending;
+    
+    private Long id;
+    
+    // 排序值放在最后，课程代码中即使出现分隔符也不影响解析
+    private String value;
+    
+    public String encode() {
+        String raw = sort + "|" + (descending ? "d" : "a") + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static CatalogCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return new CatalogCursor(parts[0], "d".equals(parts[1]), Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException 是 IllegalArgumentException 的子类
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+}
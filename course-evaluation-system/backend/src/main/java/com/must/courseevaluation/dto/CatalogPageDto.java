@@ -0,0 +1,24 @@
+package com.must.courseevaluation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 课程目录分页结果：游标分页，totalCount为满足过滤条件的课程总数（短时间缓存，可能略有滞后）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogPageDto<T> {
+    
+    private List<T> items;
+    
+    private String nextCursor;
+    
+    private boolean hasMore;
+    
+    private long totalCount;
+}
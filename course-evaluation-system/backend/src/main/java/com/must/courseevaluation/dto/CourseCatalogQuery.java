@@ -0,0 +1,31 @@
+package com.must.courseevaluation.dto;
+
+import lombok.Data;
+
+/**
+ * 课程目录查询条件，所有过滤条件均可选并按AND组合
+ * sort: rating（平均分，默认）、reviews（评价数）、code（课程代码）；direction: asc / desc，缺省时按排序键的自然方向
+ */
+@Data
+public class CourseCatalogQuery {
+    
+    private Long facultyId;
+    
+    private Long teacherId;
+    
+    private String type;
+    
+    private Double minCredits;
+    
+    private Double maxCredits;
+    
+    private Double minRating;
+    
+    private String sort;
+    
+    private String direction;
+    
+    private String cursor;
+    
+    private int size;
+}
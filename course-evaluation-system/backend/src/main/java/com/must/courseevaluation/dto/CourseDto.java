@@ -1,6 +1,7 @@
 package com.must.courseevaluation.dto;
 
 import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.model.RatingAggregate;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -75,4 +76,64 @@ public class CourseDto {
         
         return dto;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 带评分统计的转换，aggregate为null表示还没有评价
+     */
+    public static CourseDto fromEntity(Course course, RatingAggregate aggregate) {
+        CourseDto dto = fromEntity(course);
+        if (dto == null) {
+            return null;
+        }
+        
+        dto.applyRatings(aggregate);
+        return dto;
+    }
+    
+    /**
+     * 复制一份并填入当前评分统计；缓存中的列表由多个请求共享，不能原地修改
+     */
+    public CourseDto withRatings(RatingAggregate aggregate) {
+        CourseDto copy = new CourseDto(id, code, name, credits, description, type, assessmentCriteria,
+                facultyId, facultyName, teacherId, teacherName, null, null);
+        copy.applyRatings(aggregate);
+        return copy;
+    }
+    
+    /**
+     * 转换 CourseRepository 中带评分的查询结果 [Course, RatingAggregate]
+     */
+    public static CourseDto fromRow(Object[] row) {
+        return fromEntity((Course) row[0], (RatingAggregate) row[1]);
+    }
+    
+    /**
+     * 转换 CourseRepository.searchRanked 的结果行，列顺序见该方法说明
+     */
+    public static CourseDto fromSearchRow(Object[] row) {
+        CourseDto dto = new CourseDto();
+        dto.setId(((Number) row[0]).longValue());
+        dto.setCode((String) row[1]);
+        dto.setName((String) row[2]);
+        dto.setCredits(((Number) row[3]).doubleValue());
+        dto.setDescription((String) row[4]);
+        dto.setType((String) row[5]);
+        dto.setAssessmentCriteria((String) row[6]);
+        dto.setFacultyId(((Number) row[7]).longValue());
+        dto.setFacultyName((String) row[8]);
+        dto.setTeacherId(row[9] != null ? ((Number) row[9]).longValue() : null);
+        dto.setTeacherName((String) row[10]);
+        dto.applyRatings(row[11] != null ? ((Number) row[11]).longValue() : 0,
+                row[12] != null ? ((Number) row[12]).longValue() : 0);
+        return dto;
+    }
+    
+    private void applyRatings(RatingAggregate aggregate) {
+        applyRatings(aggregate != null ? aggregate.getRatingSum() : 0, aggregate != null ? aggregate.getReviewCount() : 0);
+    }
+    
+    private void applyRatings(long ratingSum, long count) {
+        reviewCount = count;
+        averageRating = count > 0 ? Math.round((double) ratingSum / count * 10) / 10.0 : 0.0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.must.courseevaluation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标（keyset）分页结果，nextCursor为null表示没有下一页
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    
+    private List<T> items;
+    
+    private String nextCursor;
+    
+    private boolean hasMore;
+}
@@ -0,0 +1,47 @@
+package com.must.courseevaluation.dto;
+
+import com.must.courseevaluation.model.Review;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 评价列表的游标，对应排序键 (pinned desc, createdAt desc, id desc) 中最后一条记录的位置
+ */
+@Data
+@AllArgsConstructor
+public class ReviewCursor {
+    
+    private boolean pinned;
+    
+    private LocalDateTime createdAt;
+    
+    private Long id;
+    
+    public static ReviewCursor of(Review review) {
+        return new ReviewCursor(review.isPinned(), review.getCreatedAt(), review.getId());
+    }
+    
+    public String encode() {
+        String raw = (pinned ? "1" : "0") + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static ReviewCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return new ReviewCursor("1".equals(parts[0]), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException 是 IllegalArgumentException 的子类
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+    }
+}
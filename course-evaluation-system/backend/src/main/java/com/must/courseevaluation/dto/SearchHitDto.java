@@ -0,0 +1,20 @@
+package com.must.courseevaluation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单条搜索结果，highlight为已转义的HTML片段，命中的关键词包在 <mark> 中
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitDto<T> {
+    
+    private T item;
+    
+    private double score;
+    
+    private String highlight;
+}
@@ -0,0 +1,24 @@
+package com.must.courseevaluation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 按相关度排序的分页结果；不统计总数，hasMore表示是否还有下一页
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchPageDto<T> {
+    
+    private List<T> items;
+    
+    private int page;
+    
+    private int size;
+    
+    private boolean hasMore;
+}
@@ -0,0 +1,28 @@
+package com.must.courseevaluation.dto;
+
+import com.must.courseevaluation.model.SensitiveWord;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensitiveWordDto {
+    
+    private Long id;
+    
+    @NotBlank(message = "敏感词不能为空")
+    @Size(max = 100, message = "敏感词不能超过100个字符")
+    private String word;
+    
+    public static SensitiveWordDto fromEntity(SensitiveWord sensitiveWord) {
+        if (sensitiveWord == null) {
+            return null;
+        }
+        
+        return new SensitiveWordDto(sensitiveWord.getId(), sensitiveWord.getWord());
+    }
+}
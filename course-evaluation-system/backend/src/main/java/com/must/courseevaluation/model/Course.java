@@ -6,13 +6,20 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "courses")
+@Table(name = "courses", indexes = {
+    @Index(name = "idx_courses_faculty", columnList = "faculty_id, id"),
+    @Index(name = "idx_courses_teacher", columnList = "teacher_id, id"),
+    @Index(name = "idx_courses_type", columnList = "type")
+})
 public class Course {
     
     @Id
@@ -49,6 +56,23 @@ public class Course {
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<Review> reviews = new HashSet<>();
     
+    // 全文检索文本：课程代码、名称、简介、教师姓名、院系名称，由全文和三元组索引覆盖
+    @Column(name = "search_text", columnDefinition = "TEXT")
+    private String searchText;
+    
+    /**
+     * 重新生成检索文本，拼接规则与 CourseRepository.refreshSearchText 的 concat_ws 一致
+     */
+    @PrePersist
+    @PreUpdate
+    public void refreshSearchText() {
+        searchText = Stream.of(code, name, description,
+                        teacher != null ? teacher.getName() : null,
+                        faculty != null ? faculty.getName() : null)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(" "));
+    }
+    
     public enum CourseType {
         COMPULSORY("必修课"),
         ELECTIVE("选修课");
@@ -0,0 +1,66 @@
+package com.must.courseevaluation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待发送邮件（发件箱）
+ * 邮件先与触发它的业务操作在同一事务中写入本表，再由后台投递任务发送，进程重启不会丢失。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_pending", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_dedupe", columnList = "dedupe_key")
+})
+public class EmailOutbox {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 100)
+    private String recipient;
+    
+    @Column(nullable = false, length = 200)
+    private String subject;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+    
+    // 相同去重键的待发送邮件只保留一封（如同一邮箱的验证码邮件），由部分唯一索引 uk_email_outbox_pending_dedupe 保证
+    @Column(name = "dedupe_key", length = 150)
+    private String dedupeKey;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+    
+    @Column(nullable = false)
+    private int attempts = 0;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    private LocalDateTime sentAt;
+    
+    @Column(length = 500)
+    private String lastError;
+    
+    public enum Status {
+        PENDING,
+        // 已被投递任务领取，next_attempt_at 为租约到期时间
+        SENDING,
+        SENT,
+        FAILED
+    }
+}
@@ -0,0 +1,104 @@
+package com.must.courseevaluation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 评分聚合：按课程/教师增量维护评分总和、评价数量和1-5星分布，
+ * 评分统计接口直接读取该表而不再扫描全部评价
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "rating_aggregates",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"target_type", "target_id"}))
+public class RatingAggregate {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false, length = 20)
+    private TargetType targetType;
+    
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+    
+    @Column(nullable = false)
+    private long ratingSum = 0;
+    
+    @Column(nullable = false)
+    private long reviewCount = 0;
+    
+    @Column(name = "star1_count", nullable = false)
+    private long star1Count = 0;
+    
+    @Column(name = "star2_count", nullable = false)
+    private long star2Count = 0;
+    
+    @Column(name = "star3_count", nullable = false)
+    private long star3Count = 0;
+    
+    @Column(name = "star4_count", nullable = false)
+    private long star4Count = 0;
+    
+    @Column(name = "star5_count", nullable = false)
+    private long star5Count = 0;
+    
+    // 平均分冗余存储并建索引，课程目录按平均分排序和过滤时走索引；随apply/reset同步更新
+    @Column(name = "avg_rating", nullable = false)
+    private double avgRating = 0;
+    
+    public enum TargetType {
+        COURSE,  // 课程
+        TEACHER  // 教师
+    }
+    
+    public RatingAggregate(TargetType targetType, Long targetId) {
+        this.targetType = targetType;
+        this.targetId = targetId;
+    }
+    
+    /**
+     * 计入一条评分（delta为1）或移除一条评分（delta为-1）
+     */
+    public void apply(int rating, int delta) {
+        ratingSum += (long) rating * delta;
+        reviewCount += delta;
+        switch (rating) {
+            case 1 -> star1Count += delta;
+            case 2 -> star2Count += delta;
+            case 3 -> star3Count += delta;
+            case 4 -> star4Count += delta;
+            case 5 -> star5Count += delta;
+            default -> throw new IllegalArgumentException("评分必须在1到5之间: " + rating);
+        }
+        avgRating = reviewCount > 0 ? (double) ratingSum / reviewCount : 0;
+    }
+    
+    public long getStarCount(int rating) {
+        return switch (rating) {
+            case 1 -> star1Count;
+            case 2 -> star2Count;
+            case 3 -> star3Count;
+            case 4 -> star4Count;
+            case 5 -> star5Count;
+            default -> 0;
+        };
+    }
+    
+    public void reset() {
+        ratingSum = 0;
+        reviewCount = 0;
+        star1Count = 0;
+        star2Count = 0;
+        star3Count = 0;
+        star4Count = 0;
+        star5Count = 0;
+        avgRating = 0;
+    }
+}
@@ -11,7 +11,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+    // 支撑评价列表的 (pinned desc, createdAt desc, id desc) 排序和游标分页
+    @Index(name = "idx_reviews_course_feed", columnList = "course_id, pinned DESC, created_at DESC, id DESC"),
+    // 每次提交评价时的 existsByUserAndCourse 检查
+    @Index(name = "idx_reviews_user_course", columnList = "user_id, course_id"),
+    @Index(name = "idx_reviews_course_rating", columnList = "course_id, rating")
+})
 public class Review {
     
     @Id
@@ -12,7 +12,10 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "teachers")
+@Table(name = "teachers", indexes = {
+    @Index(name = "idx_teachers_faculty", columnList = "faculty_id"),
+    @Index(name = "idx_teachers_name", columnList = "name")
+})
 public class Teacher {
     
     @Id
@@ -42,6 +42,10 @@ public class User {
     @Column(nullable = false)
     private boolean canComment = true;
     
+    // 令牌版本，账号状态、权限或密码变化时递增，使已签发的令牌失效
+    @Column(nullable = false)
+    private int tokenVersion = 0;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
     
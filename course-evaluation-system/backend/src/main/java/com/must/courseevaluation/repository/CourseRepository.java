@@ -4,17 +4,86 @@ import com.must.courseevaluation.model.Course;
 import com.must.courseevaluation.model.Faculty;
 import com.must.courseevaluation.model.Teacher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
+    
+    // 课程列表查询：一次JOIN带出院系、教师和评分聚合行，返回 [Course, RatingAggregate]，没有评价时聚合为null
+    String WITH_RATINGS = "SELECT c, a FROM Course c LEFT JOIN FETCH c.faculty LEFT JOIN FETCH c.teacher " +
+            "LEFT JOIN RatingAggregate a ON a.targetType = com.must.courseevaluation.model.RatingAggregate$TargetType.COURSE " +
+            "AND a.targetId = c.id ";
+    
     Optional<Course> findByCode(String code);
-    List<Course> findByNameContaining(String name);
     List<Course> findByFaculty(Faculty faculty);
     List<Course> findByTeacher(Teacher teacher);
     List<Course> findByType(Course.CourseType type);
     boolean existsByCode(String code);
-} 
\ No newline at end of file
+    
+    @Query(WITH_RATINGS)
+    List<Object[]> findAllWithRatings();
+    
+    @Query(WITH_RATINGS + "WHERE c.faculty.id = :facultyId")
+    List<Object[]> findByFacultyIdWithRatings(@Param("facultyId") Long facultyId);
+    
+    @Query(WITH_RATINGS + "WHERE c.teacher.id = :teacherId")
+    List<Object[]> findByTeacherIdWithRatings(@Param("teacherId") Long teacherId);
+    
+    @Query(WITH_RATINGS + "WHERE c.type = :type")
+    List<Object[]> findByTypeWithRatings(@Param("type") Course.CourseType type);
+    
+    @Query("SELECT c.id FROM Course c WHERE c.teacher.id = :teacherId")
+    List<Long> findIdsByTeacherId(@Param("teacherId") Long teacherId);
+    
+    @Query("SELECT c.id FROM Course c WHERE c.faculty.id = :facultyId")
+    List<Long> findIdsByFacultyId(@Param("facultyId") Long facultyId);
+    
+    /**
+     * 全文检索：tsvector匹配整词，三元组ILIKE匹配中文和部分词；返回本页课程
+     * [id, code, name, credits, description, type, assessment_criteria, faculty_id, 院系名称, teacher_id, 教师名称,
+     * rating_sum, review_count, score]，院系、教师和评分聚合只为本页的行关联，没有聚合行时评分两列为null
+     * 先按得分的主要来源依次取至多 candidates 个候选：代码精确匹配（idx_courses_code_lower）、名称包含（idx_courses_name_trgm）、
+     * 整词匹配（idx_courses_search_vector）、检索文本包含（idx_courses_search_trgm）；UNION ALL按顺序执行，
+     * 候选取满后不再执行后面的分支。排名只对候选计算，常见关键词命中数千门课程时不必为每个命中行计算相似度再排序
+     * 得分 = 整词相关度 + 三元组得分（检索文本包含关键词时为1，否则取word_similarity，不会因简介较长而被稀释）
+     * + 代码精确匹配2分或名称包含1分；检索文本包含代码和名称，后两项可由候选所在的分支直接得出，
+     * 只有仅靠整词匹配进入的候选需要逐行比较检索文本
+     */
+    @Query(value = "WITH q AS (SELECT plainto_tsquery('simple', :keyword) AS query), " +
+            "candidates AS (SELECT t.id, max(t.bonus) AS bonus FROM (" +
+            "(SELECT c.id, 3.0 AS bonus FROM courses c WHERE lower(c.code) = lower(:keyword)) " +
+            "UNION ALL (SELECT c.id, 2.0 FROM courses c WHERE c.name ILIKE :pattern) " +
+            "UNION ALL (SELECT c.id, CAST(NULL AS numeric) FROM courses c, q WHERE c.search_vector @@ q.query) " +
+            "UNION ALL (SELECT c.id, 1.0 FROM courses c WHERE c.search_text ILIKE :pattern) " +
+            "LIMIT :candidates) t GROUP BY t.id), " +
+            "ranked AS (SELECT c.id, ts_rank_cd(c.search_vector, q.query) + COALESCE(k.bonus, " +
+            "CASE WHEN c.search_text ILIKE :pattern THEN 1.0 ELSE word_similarity(:keyword, c.search_text) END) AS score " +
+            "FROM candidates k JOIN courses c ON c.id = k.id CROSS JOIN q " +
+            "ORDER BY score DESC, c.id LIMIT :limit OFFSET :offset) " +
+            "SELECT c.id, c.code, c.name, c.credits, c.description, c.type, c.assessment_criteria, " +
+            "c.faculty_id, f.name AS faculty_name, c.teacher_id, t.name AS teacher_name, a.rating_sum, a.review_count, r.score " +
+            "FROM ranked r JOIN courses c ON c.id = r.id " +
+            "LEFT JOIN faculties f ON f.id = c.faculty_id LEFT JOIN teachers t ON t.id = c.teacher_id " +
+            "LEFT JOIN rating_aggregates a ON a.target_type = 'COURSE' AND a.target_id = c.id " +
+            "ORDER BY r.score DESC, c.id", nativeQuery = true)
+    List<Object[]> searchRanked(@Param("keyword") String keyword, @Param("pattern") String pattern,
+                                @Param("candidates") int candidates, @Param("limit") int limit,
+                                @Param("offset") int offset);
+    
+    // 教师或院系改名、教师删除后重建相关课程的检索文本
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE courses c SET search_text = concat_ws(' ', c.code, c.name, c.description, " +
+            "(SELECT t.name FROM teachers t WHERE t.id = c.teacher_id), " +
+            "(SELECT f.name FROM faculties f WHERE f.id = c.faculty_id)) " +
+            "WHERE c.id IN (:ids)", nativeQuery = true)
+    int refreshSearchText(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,50 @@
+package com.must.courseevaluation.repository;
+
+import com.must.courseevaluation.model.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    
+    // 锁定一批到期的邮件：待发送的，以及租约已过期（投递节点中途退出）的发送中邮件；
+    // 已被其他节点锁定的行直接跳过，多个投递任务可并行而不重复领取
+    @Query(value = "SELECT * FROM email_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> claimDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    // 写入待发送邮件，同键的待发送邮件已存在时只替换内容（由部分唯一索引 uk_email_outbox_pending_dedupe 保证）。
+    // 已被领取（SENDING）的行不在索引范围内，不会被覆盖，也不会因其行锁而等待
+    @Modifying
+    @Query(value = "INSERT INTO email_outbox (recipient, subject, body, dedupe_key, status, attempts, " +
+            "next_attempt_at, created_at) VALUES (:recipient, :subject, :body, :dedupeKey, 'PENDING', 0, :now, :now) " +
+            "ON CONFLICT (dedupe_key) WHERE status = 'PENDING' " +
+            "DO UPDATE SET recipient = EXCLUDED.recipient, subject = EXCLUDED.subject, body = EXCLUDED.body",
+            nativeQuery = true)
+    int upsertPending(@Param("recipient") String recipient, @Param("subject") String subject,
+                      @Param("body") String body, @Param("dedupeKey") String dedupeKey,
+                      @Param("now") LocalDateTime now);
+    
+    // 只更新已存在的同键待发送邮件，返回更新行数；积压超限时仍允许合并
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.subject = :subject, e.body = :body WHERE e.dedupeKey = :dedupeKey " +
+            "AND e.status = com.must.courseevaluation.model.EmailOutbox$Status.PENDING")
+    int updatePendingByDedupeKey(@Param("dedupeKey") String dedupeKey, @Param("subject") String subject,
+                                 @Param("body") String body);
+    
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.must.courseevaluation.model.EmailOutbox$Status.SENT, " +
+            "e.attempts = e.attempts + 1, e.sentAt = :sentAt, e.lastError = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+    
+    boolean existsByDedupeKeyAndStatus(String dedupeKey, EmailOutbox.Status status);
+    
+    long countByStatus(EmailOutbox.Status status);
+}
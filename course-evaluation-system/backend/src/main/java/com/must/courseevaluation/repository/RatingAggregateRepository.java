@@ -0,0 +1,50 @@
+package com.must.courseevaluation.repository;
+
+import com.must.courseevaluation.model.RatingAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RatingAggregateRepository extends JpaRepository<RatingAggregate, Long> {
+    Optional<RatingAggregate> findByTargetTypeAndTargetId(RatingAggregate.TargetType targetType, Long targetId);
+    
+    List<RatingAggregate> findByTargetTypeAndTargetIdIn(RatingAggregate.TargetType targetType, Collection<Long> targetIds);
+    
+    // 写路径加行锁，保证并发评价时计数器不丢失更新
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM RatingAggregate a WHERE a.targetType = :targetType AND a.targetId = :targetId")
+    Optional<RatingAggregate> findForUpdate(@Param("targetType") RatingAggregate.TargetType targetType,
+                                            @Param("targetId") Long targetId);
+    
+    // 聚合行不存在时插入空行；并发插入同一目标时由唯一约束兜底，不报错也不回滚调用方事务
+    @Modifying
+    @Query(value = "INSERT INTO rating_aggregates (target_type, target_id, rating_sum, review_count, " +
+            "star1_count, star2_count, star3_count, star4_count, star5_count) " +
+            "VALUES (:targetType, :targetId, 0, 0, 0, 0, 0, 0, 0) " +
+            "ON CONFLICT (target_type, target_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("targetType") String targetType, @Param("targetId") Long targetId);
+    
+    // 为还没有聚合行的课程和教师补建空行，目录查询以内连接读取聚合行
+    @Modifying
+    @Query(value = "INSERT INTO rating_aggregates (target_type, target_id) " +
+            "SELECT 'COURSE', id FROM courses ON CONFLICT (target_type, target_id) DO NOTHING", nativeQuery = true)
+    int insertMissingForCourses();
+    
+    @Modifying
+    @Query(value = "INSERT INTO rating_aggregates (target_type, target_id) " +
+            "SELECT 'TEACHER', id FROM teachers ON CONFLICT (target_type, target_id) DO NOTHING", nativeQuery = true)
+    int insertMissingForTeachers();
+    
+    @Modifying
+    @Query("DELETE FROM RatingAggregate a WHERE a.targetType = :targetType AND a.targetId = :targetId")
+    void deleteByTarget(@Param("targetType") RatingAggregate.TargetType targetType, @Param("targetId") Long targetId);
+}
@@ -5,27 +5,32 @@ import com.must.courseevaluation.model.Review;
 import com.must.courseevaluation.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByCourse(Course course);
     Page<Review> findByCourse(Course course, Pageable pageable);
+    
+    // 列表接口转换DTO时需要user和course，统一用EntityGraph一次JOIN取回，避免N+1懒加载
+    @EntityGraph(attributePaths = {"user", "course"})
+    @Query("SELECT r FROM Review r")
+    List<Review> findAllWithUserAndCourse();
+    
+    @EntityGraph(attributePaths = {"user", "course"})
     List<Review> findByUser(User user);
     Page<Review> findByUser(User user, Pageable pageable);
     List<Review> findByCourseAndStatus(Course course, Review.ReviewStatus status);
     
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.course = ?1")
-    Double getAverageRatingForCourse(Course course);
-    
-    @Query("SELECT COUNT(r) FROM Review r WHERE r.course = ?1")
-    Long getReviewCountForCourse(Course course);
-    
     @Query("SELECT r FROM Review r JOIN r.course c WHERE c.teacher.id = :teacherId AND r.status = :status")
     List<Review> findByTeacherIdAndStatus(@Param("teacherId") Long teacherId, @Param("status") Review.ReviewStatus status);
     
@@ -33,4 +38,79 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByTeacherId(@Param("teacherId") Long teacherId);
     
     boolean existsByUserAndCourse(User user, Course course);
+    
+    // 评价列表排序 (pinned desc, createdAt desc, id desc)，由 idx_reviews_course_feed 索引支撑
+    @EntityGraph(attributePaths = {"user", "course"})
+    List<Review> findByCourseOrderByPinnedDescCreatedAtDescIdDesc(Course course);
+    
+    @EntityGraph(attributePaths = {"user", "course"})
+    @Query("SELECT r FROM Review r JOIN r.course c WHERE c.teacher.id = :teacherId " +
+           "ORDER BY r.pinned DESC, r.createdAt DESC, r.id DESC")
+    List<Review> findByTeacherIdOrderByFeed(@Param("teacherId") Long teacherId);
+    
+    // 游标分页按置顶段查询：段内 pinned 固定，排序只剩 (createdAt desc, id desc)，
+    // 游标条件写成行比较，可直接在 idx_reviews_course_feed 上定位起点，不必逐行过滤
+    @EntityGraph(attributePaths = {"user", "course"})
+    @Query("SELECT r FROM Review r WHERE r.course.id = :courseId AND r.pinned = :pinned " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findCourseFeedSegment(@Param("courseId") Long courseId,
+                                       @Param("pinned") boolean pinned,
+                                       Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"user", "course"})
+    @Query("SELECT r FROM Review r WHERE r.course.id = :courseId AND r.pinned = :pinned " +
+           "AND (r.createdAt, r.id) < (:createdAt, :id) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findCourseFeedSegmentAfter(@Param("courseId") Long courseId,
+                                            @Param("pinned") boolean pinned,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"user", "course"})
+    @Query("SELECT r FROM Review r JOIN r.course c WHERE c.teacher.id = :teacherId AND r.pinned = :pinned " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findTeacherFeedSegment(@Param("teacherId") Long teacherId,
+                                        @Param("pinned") boolean pinned,
+                                        Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"user", "course"})
+    @Query("SELECT r FROM Review r JOIN r.course c WHERE c.teacher.id = :teacherId AND r.pinned = :pinned " +
+           "AND (r.createdAt, r.id) < (:createdAt, :id) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findTeacherFeedSegmentAfter(@Param("teacherId") Long teacherId,
+                                             @Param("pinned") boolean pinned,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+    
+    // 评分分布统计：返回 [rating, count]，仅用于评分聚合的重算
+    @Query("SELECT r.rating, COUNT(r) FROM Review r WHERE r.course.id = :courseId GROUP BY r.rating")
+    List<Object[]> countRatingsByCourseId(@Param("courseId") Long courseId);
+    
+    @Query("SELECT r.rating, COUNT(r) FROM Review r JOIN r.course c WHERE c.teacher.id = :teacherId GROUP BY r.rating")
+    List<Object[]> countRatingsByTeacherId(@Param("teacherId") Long teacherId);
+    
+    // 返回 [courseId, rating, count]
+    @Query("SELECT r.course.id, r.rating, COUNT(r) FROM Review r GROUP BY r.course.id, r.rating")
+    List<Object[]> countRatingsGroupedByCourse();
+    
+    // 返回 [teacherId, rating, count]
+    @Query("SELECT t.id, r.rating, COUNT(r) FROM Review r JOIN r.course c JOIN c.teacher t GROUP BY t.id, r.rating")
+    List<Object[]> countRatingsGroupedByTeacher();
+    
+    // 返回 [courseId, teacherId]，用于删除用户前找出受影响的课程和教师
+    @Query("SELECT DISTINCT c.id, t.id FROM Review r JOIN r.course c LEFT JOIN c.teacher t WHERE r.user.id = :userId")
+    List<Object[]> findReviewedCourseAndTeacherIdsByUserId(@Param("userId") Long userId);
+    
+    // 批量删除前锁定并取出 [reviewId, courseId, teacherId, rating]，用于找出不存在的ID和更新评分聚合
+    // 按ID顺序加锁，两个删除请求的ID有交集时按同一顺序等待，不会互相死锁
+    @Query(value = "SELECT r.id, r.course_id, c.teacher_id, r.rating FROM reviews r " +
+            "JOIN courses c ON c.id = r.course_id WHERE r.id IN (:ids) ORDER BY r.id FOR UPDATE OF r", nativeQuery = true)
+    List<Object[]> lockForDeletion(@Param("ids") Collection<Long> ids);
+    
+    // 单条语句批量删除；会绕过持久化上下文，执行后清空以免读到已删除的实体
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Review r WHERE r.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 } 
\ No newline at end of file
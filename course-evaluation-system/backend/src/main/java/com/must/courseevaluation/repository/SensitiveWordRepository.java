@@ -0,0 +1,22 @@
+package com.must.courseevaluation.repository;
+
+import com.must.courseevaluation.model.SensitiveWord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SensitiveWordRepository extends JpaRepository<SensitiveWord, Long> {
+    boolean existsByWord(String word);
+    
+    @Query("SELECT w.word FROM SensitiveWord w")
+    List<String> findAllWords();
+    
+    // 词表版本签名：按词排序后拼接的MD5，增删词和原地修改词的内容（包括直接改库）都会改变签名，
+    // 只与词的集合有关；轮询时只需这一条查询，不必把整个词表传回应用
+    @Query(value = "SELECT md5(coalesce(string_agg(word, chr(10) ORDER BY word), '')) FROM sensitive_words",
+           nativeQuery = true)
+    String findVersionSignature();
+}
@@ -1,16 +1,30 @@
 package com.must.courseevaluation.repository;
 
 import com.must.courseevaluation.model.Teacher;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TeacherRepository extends JpaRepository<Teacher, Long> {
     Optional<Teacher> findByName(String name);
-    List<Teacher> findByNameContaining(String name);
     List<Teacher> findByFacultyId(Long facultyId);
     boolean existsByName(String name);
-} 
\ No newline at end of file
+    
+    @EntityGraph(attributePaths = {"faculty"})
+    List<Teacher> findByIdIn(Collection<Long> ids);
+    
+    // 教师姓名检索，由 idx_teachers_name_trgm 三元组索引支撑；返回 [teacherId, score]
+    @Query(value = "SELECT t.id, word_similarity(:keyword, t.name) " +
+            "+ CASE WHEN t.name ILIKE :prefix THEN 1.0 ELSE 0.0 END AS score " +
+            "FROM teachers t WHERE t.name ILIKE :pattern " +
+            "ORDER BY score DESC, t.id LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Object[]> searchRanked(@Param("keyword") String keyword, @Param("pattern") String pattern,
+                                @Param("prefix") String prefix, @Param("limit") int limit, @Param("offset") int offset);
+}
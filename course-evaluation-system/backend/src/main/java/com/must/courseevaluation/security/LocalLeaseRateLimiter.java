@@ -0,0 +1,104 @@
+package com.must.courseevaluation.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.must.courseevaluation.config.RateLimitProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 进程内的令牌租约层，位于Redis限流器之前
+ * 每个客户端一次从Redis预取一批许可（租约），之后在本地无锁扣减，用完或过期后再访问Redis。
+ * 许可在Redis中预先扣除，因此多节点下全局限额不会被突破，只可能因未用完的租约略微提前限流。
+ * 每批许可不超过租约有效期内按速率恢复的数量，限额很小的分组（如验证码邮件）不做租约，每次都访问Redis。
+ */
+@Component
+public class LocalLeaseRateLimiter {
+    
+    private final RateLimitProperties properties;
+    private final RedisRateLimiter redisRateLimiter;
+    
+    // 有界缓存，空闲的客户端租约自动淘汰
+    private final Cache<String, AtomicReference<Lease>> leases;
+    
+    @Autowired
+    public LocalLeaseRateLimiter(RateLimitProperties properties, RedisRateLimiter redisRateLimiter) {
+        this.properties = properties;
+        this.redisRateLimiter = redisRateLimiter;
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxClients())
+                .expireAfterAccess(properties.getLocalIdleTimeout())
+                .build();
+    }
+    
+    public RedisRateLimiter.Result tryAcquire(String key, RateLimitProperties.Group group) {
+        int batchSize = batchSize(group);
+        if (batchSize <= 1) {
+            return redisRateLimiter.tryAcquire(key, group);
+        }
+        
+        AtomicReference<Lease> holder = leases.get(key, k -> new AtomicReference<>(Lease.EMPTY));
+        
+        // 先尝试从本地租约扣减，CAS失败说明有并发请求，重试即可
+        long now = System.nanoTime();
+        while (true) {
+            Lease lease = holder.get();
+            if (lease.remaining <= 0 || now >= lease.expiresAtNanos) {
+                break;
+            }
+            Lease next = new Lease(lease.remaining - 1, lease.globalRemaining, lease.expiresAtNanos);
+            if (holder.compareAndSet(lease, next)) {
+                return new RedisRateLimiter.Result(true, next.globalRemaining + next.remaining, 0);
+            }
+        }
+        
+        // 本地租约用完，向Redis申请新的一批，其中一个许可给当前请求
+        RedisRateLimiter.Result result = redisRateLimiter.tryAcquire(key, group, batchSize);
+        int granted = batchSize;
+        if (!result.isAllowed()) {
+            // 接近限额时整批申请会失败，退回到单个许可以保证精确
+            result = redisRateLimiter.tryAcquire(key, group, 1);
+            granted = 1;
+        }
+        if (!result.isAllowed()) {
+            return result;
+        }
+        
+        long expiresAt = System.nanoTime() + properties.getLeaseTtl().toNanos();
+        Lease lease = new Lease(granted - 1, result.getRemaining(), expiresAt);
+        // 并发时可能覆盖另一线程刚取得的租约，只会让本地少用几个许可，不会超限
+        holder.set(lease);
+        return new RedisRateLimiter.Result(true, lease.globalRemaining + lease.remaining, 0);
+    }
+    
+    /**
+     * 一批许可最多取租约有效期内按速率恢复的数量，否则一个节点的首个请求就会预扣整个周期的额度
+     */
+    private int batchSize(RateLimitProperties.Group group) {
+        long periodMs = group.getPeriod().toMillis();
+        if (periodMs <= 0) {
+            return 1;
+        }
+        long refilledDuringLease = group.getLimit() * properties.getLeaseTtl().toMillis() / periodMs;
+        return (int) Math.min(properties.getLocalBatchSize(), refilledDuringLease);
+    }
+    
+    /**
+     * 不可变的租约状态，通过CAS整体替换
+     */
+    private static final class Lease {
+        static final Lease EMPTY = new Lease(0, 0, 0);
+        
+        final long remaining;
+        final long globalRemaining;
+        final long expiresAtNanos;
+        
+        Lease(long remaining, long globalRemaining, long expiresAtNanos) {
+            this.remaining = remaining;
+            this.globalRemaining = globalRemaining;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -1,50 +1,59 @@
 package com.must.courseevaluation.security;
 
+import com.must.courseevaluation.config.RateLimitProperties;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import java.util.concurrent.TimeUnit;
-
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
     
     private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
     
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private RateLimitProperties rateLimitProperties;
     
-    // 每分钟最多60次请求
-    private static final int MAX_REQUESTS_PER_MINUTE = 60;
-    private static final int TIME_WINDOW_MINUTES = 1;
+    @Autowired
+    private LocalLeaseRateLimiter localLeaseRateLimiter;
     
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!rateLimitProperties.isEnabled()) {
+            return true;
+        }
+        
+        RateLimitProperties.Group group = resolveGroup(request);
+        if (group == null) {
+            return true;
+        }
+        
         String clientIp = getClientIpAddress(request);
-        String key = "rate_limit:" + clientIp;
+        String key = "rate_limit:" + group.getName() + ":" + clientIp;
         
         try {
-            String countStr = (String) redisTemplate.opsForValue().get(key);
-            int count = countStr != null ? Integer.parseInt(countStr) : 0;
+            RedisRateLimiter.Result result = localLeaseRateLimiter.tryAcquire(key, group);
+            
+            response.setHeader("X-RateLimit-Limit", String.valueOf(group.getLimit()));
+            response.setHeader("X-RateLimit-Remaining", String.valueOf(result.getRemaining()));
             
-            if (count >= MAX_REQUESTS_PER_MINUTE) {
-                logger.warn("Rate limit exceeded for IP: {}", clientIp);
+            if (!result.isAllowed()) {
+                logger.warn("Rate limit exceeded for IP: {}, group: {}", clientIp, group.getName());
+                // Retry-After 以秒为单位，向上取整
+                long retryAfterSeconds = Math.max(1, (result.getRetryAfterMillis() + 999) / 1000);
+                response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
                 response.setStatus(429);
+                response.setContentType("application/json");
                 response.getWriter().write("{\"error\":\"Too many requests\"}");
                 return false;
             }
             
-            // 增加计数
-            redisTemplate.opsForValue().increment(key);
-            if (count == 0) {
-                redisTemplate.expire(key, TIME_WINDOW_MINUTES, TimeUnit.MINUTES);
-            }
-            
             return true;
         } catch (Exception e) {
             logger.error("Rate limit check failed", e);
@@ -53,6 +62,18 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         }
     }
     
+    private RateLimitProperties.Group resolveGroup(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RateLimitProperties.Group group : rateLimitProperties.getGroups()) {
+            for (String pattern : group.getPatterns()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+    
     private String getClientIpAddress(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
@@ -66,4 +87,4 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         
         return request.getRemoteAddr();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.must.courseevaluation.security;
+
+import com.must.courseevaluation.config.RateLimitProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于Redis的GCRA限流器
+ * 每个客户端只保存一个“理论到达时间”(TAT)，判断和更新在一次Lua脚本调用中原子完成，
+ * 键的过期时间随每次写入一起设置，不会出现没有TTL的残留键。
+ */
+@Component
+public class RedisRateLimiter {
+    
+    // KEYS[1]: 限流键  ARGV[1]: 单个请求的发放间隔(ms)  ARGV[2]: 周期(ms)，即突发容量  ARGV[3]: 本次申请的许可数
+    // 返回 {是否允许(1/0), 剩余次数, 需要等待的毫秒数}
+    private static final String GCRA_SCRIPT =
+            "local t = redis.call('TIME') " +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) " +
+            "local interval = tonumber(ARGV[1]) " +
+            "local period = tonumber(ARGV[2]) " +
+            "local cost = tonumber(ARGV[3]) " +
+            "local tat = tonumber(redis.call('GET', KEYS[1])) " +
+            "if tat == nil or tat < now then tat = now end " +
+            "local newTat = tat + interval * cost " +
+            "local allowAt = newTat - period " +
+            "if now < allowAt then " +
+            "  return {0, 0, allowAt - now} " +
+            "end " +
+            "redis.call('SET', KEYS[1], newTat, 'PX', newTat - now) " +
+            "return {1, math.floor((period - (newTat - now)) / interval), 0}";
+    
+    private final DefaultRedisScript<List<Long>> script = gcraScript();
+    
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    
+    /**
+     * 尝试获取一次请求许可，单次Redis往返
+     */
+    public Result tryAcquire(String key, RateLimitProperties.Group group) {
+        return tryAcquire(key, group, 1);
+    }
+    
+    /**
+     * 一次性申请permits个许可，全部可用才成功
+     */
+    public Result tryAcquire(String key, RateLimitProperties.Group group, int permits) {
+        long periodMs = group.getPeriod().toMillis();
+        long intervalMs = Math.max(1, periodMs / group.getLimit());
+        
+        List<Long> reply = stringRedisTemplate.execute(script, Collections.singletonList(key),
+                String.valueOf(intervalMs), String.valueOf(intervalMs * group.getLimit()), String.valueOf(permits));
+        
+        boolean allowed = toLong(reply.get(0)) == 1;
+        return new Result(allowed, toLong(reply.get(1)), toLong(reply.get(2)));
+    }
+    
+    /**
+     * 脚本返回的整数数组解码为Long列表；List.class带不了元素类型，在这里集中转换一次
+     */
+    @SuppressWarnings("unchecked")
+    private static DefaultRedisScript<List<Long>> gcraScript() {
+        Class<List<Long>> resultType = (Class<List<Long>>) (Class<?>) List.class;
+        return new DefaultRedisScript<>(GCRA_SCRIPT, resultType);
+    }
+    
+    private long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+    }
+    
+    /**
+     * 限流判断结果
+     */
+    public static final class Result {
+        private final boolean allowed;
+        private final long remaining;
+        private final long retryAfterMillis;
+        
+        public Result(boolean allowed, long remaining, long retryAfterMillis) {
+            this.allowed = allowed;
+            this.remaining = remaining;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+        
+        public boolean isAllowed() {
+            return allowed;
+        }
+        
+        public long getRemaining() {
+            return remaining;
+        }
+        
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+}
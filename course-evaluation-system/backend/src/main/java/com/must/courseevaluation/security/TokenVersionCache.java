@@ -0,0 +1,47 @@
+package com.must.courseevaluation.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.must.courseevaluation.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 用户令牌版本缓存
+ * 无状态认证时用令牌中的版本号与当前版本比较，版本不一致的令牌视为已吊销。
+ * 本节点修改用户后立即失效对应条目，其他节点最迟在TTL后读到新版本。
+ */
+@Component
+public class TokenVersionCache {
+
+    // 用户不存在（已删除）时的版本号，任何令牌都不会与之相等
+    private static final int REVOKED = -1;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> versions;
+
+    public TokenVersionCache(UserRepository userRepository,
+                             @Value("${jwt.token-version-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${jwt.token-version-cache.ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * 令牌版本是否仍是用户的当前版本
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer current = versions.get(userId,
+                id -> userRepository.findTokenVersionById(id).orElse(REVOKED));
+        return current != null && current == tokenVersion;
+    }
+
+    public void invalidate(Long userId) {
+        versions.invalidate(userId);
+    }
+}
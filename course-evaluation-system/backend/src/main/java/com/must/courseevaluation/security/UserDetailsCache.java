@@ -0,0 +1,150 @@
+package com.must.courseevaluation.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.must.courseevaluation.service.CacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 用户认证信息缓存，按用户名缓存UserDetailsImpl，并维护ID到用户名的索引
+ * 有容量上限和TTL；修改或删除用户时本节点立即失效，事务提交后通过缓存失效频道通知所有节点，
+ * 缓存中的密码哈希、角色和启用状态不会在其他节点上继续生效。Redis不可用时其他节点最迟在TTL后读到新数据。
+ */
+@Component
+public class UserDetailsCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsCache.class);
+
+    // 失效广播消息前缀，与CacheService共用频道，后面跟用户ID
+    private static final String INVALIDATION_PREFIX = "user-details:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Cache<String, UserDetailsImpl> byUsername;
+    private final Cache<Long, String> usernameById;
+
+    // 上次输出统计时的请求数，没有新请求时不重复输出
+    private volatile long lastLoggedRequestCount;
+
+    public UserDetailsCache(StringRedisTemplate stringRedisTemplate,
+                            @Value("${user-details-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${user-details-cache.ttl:60s}") Duration ttl) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.byUsername = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.usernameById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public UserDetailsImpl getByUsername(String username) {
+        return byUsername.getIfPresent(username);
+    }
+
+    public UserDetailsImpl getById(Long id) {
+        String username = usernameById.getIfPresent(id);
+        return username != null ? byUsername.getIfPresent(username) : null;
+    }
+
+    public void put(UserDetailsImpl userDetails) {
+        byUsername.put(userDetails.getUsername(), userDetails);
+        usernameById.put(userDetails.getId(), userDetails.getUsername());
+    }
+
+    /**
+     * 失效用户的缓存；用户名可能已被修改，传入的用户名和索引中的旧用户名都会失效
+     * 在事务中调用时，提交后再失效一次并广播，避免并发请求在提交前回填旧数据
+     */
+    public void evict(Long id, String... usernames) {
+        evictLocal(id, usernames);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocal(id, usernames);
+                    publishEviction(id);
+                }
+            });
+        } else {
+            publishEviction(id);
+        }
+    }
+
+    /**
+     * 收到失效广播，按用户ID清除本节点的缓存（其他节点的用户名索引可能已过期，按ID扫描一遍）
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!body.startsWith(INVALIDATION_PREFIX)) {
+            return;
+        }
+        try {
+            Long id = Long.valueOf(body.substring(INVALIDATION_PREFIX.length()));
+            evictLocal(id);
+            byUsername.asMap().values().removeIf(userDetails -> id.equals(userDetails.getId()));
+        } catch (NumberFormatException e) {
+            logger.warn("无效的用户缓存失效消息: {}", body);
+        }
+    }
+
+    private void evictLocal(Long id, String... usernames) {
+        String indexedUsername = usernameById.getIfPresent(id);
+        if (indexedUsername != null) {
+            byUsername.invalidate(indexedUsername);
+        }
+        for (String username : usernames) {
+            if (username != null) {
+                byUsername.invalidate(username);
+            }
+        }
+        usernameById.invalidate(id);
+    }
+
+    private void publishEviction(Long id) {
+        try {
+            stringRedisTemplate.convertAndSend(CacheService.INVALIDATION_CHANNEL, INVALIDATION_PREFIX + id);
+        } catch (Exception e) {
+            logger.warn("广播用户缓存失效失败, 用户ID: {}, 原因: {}", id, e.getMessage());
+        }
+    }
+
+    public CacheStats getUsernameStats() {
+        return byUsername.stats();
+    }
+
+    public CacheStats getIdStats() {
+        return usernameById.stats();
+    }
+
+    @Scheduled(fixedDelayString = "${user-details-cache.stats-log-interval-ms:300000}")
+    public void logStats() {
+        CacheStats stats = byUsername.stats();
+        if (stats.requestCount() == lastLoggedRequestCount) {
+            return;
+        }
+        lastLoggedRequestCount = stats.requestCount();
+        CacheStats idStats = usernameById.stats();
+        logger.info("用户缓存统计 - 按用户名: 命中 {}, 未命中 {}, 命中率 {}; 按ID: 命中 {}, 未命中 {}; 条目数 {}",
+                stats.hitCount(), stats.missCount(), String.format("%.2f", stats.hitRate()),
+                idStats.hitCount(), idStats.missCount(), byUsername.estimatedSize());
+    }
+}
@@ -21,9 +21,16 @@ public class UserDetailsImpl implements UserDetails {
     private final Collection<? extends GrantedAuthority> authorities;
     private final boolean active;
     private final boolean canComment;
+    private final int tokenVersion;
 
     public UserDetailsImpl(Long id, String username, String email, String password,
                            Collection<? extends GrantedAuthority> authorities, boolean active, boolean canComment) {
+        this(id, username, email, password, authorities, active, canComment, 0);
+    }
+
+    public UserDetailsImpl(Long id, String username, String email, String password,
+                           Collection<? extends GrantedAuthority> authorities, boolean active, boolean canComment,
+                           int tokenVersion) {
         this.id = id;
         this.username = username;
         this.email = email;
@@ -31,6 +38,7 @@ public class UserDetailsImpl implements UserDetails {
         this.authorities = authorities;
         this.active = active;
         this.canComment = canComment;
+        this.tokenVersion = tokenVersion;
     }
 
     public static UserDetailsImpl build(User user) {
@@ -43,7 +51,8 @@ public class UserDetailsImpl implements UserDetails {
                 user.getPassword(),
                 Collections.singletonList(authority),
                 user.isActive(),
-                user.isCanComment()
+                user.isCanComment(),
+                user.getTokenVersion()
         );
     }
 
@@ -59,6 +68,14 @@ public class UserDetailsImpl implements UserDetails {
         return canComment;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public boolean hasRole(User.Role role) {
+        return authorities.stream().anyMatch(authority -> role.name().equals(authority.getAuthority()));
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
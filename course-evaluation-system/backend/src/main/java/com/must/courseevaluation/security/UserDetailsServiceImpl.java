@@ -4,23 +4,69 @@ import com.must.courseevaluation.model.User;
 import com.must.courseevaluation.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @Override
-    @Transactional
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    @Transactional(readOnly = true)
+    public UserDetailsImpl loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetailsImpl cached = userDetailsCache.getByUsername(username);
+        if (cached != null) {
+            return cached;
+        }
+
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("未找到用户: " + username));
 
-        return UserDetailsImpl.build(user);
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        userDetailsCache.put(userDetails);
+        return userDetails;
+    }
+
+    /**
+     * 按ID加载用户认证信息，优先读取缓存
+     */
+    @Transactional(readOnly = true)
+    public UserDetailsImpl loadUserById(Long id) throws UsernameNotFoundException {
+        UserDetailsImpl cached = userDetailsCache.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("未找到用户，ID: " + id));
+
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        userDetailsCache.put(userDetails);
+        return userDetails;
+    }
+
+    /**
+     * 登录成功后由认证提供者调用，保存升级后的密码哈希（密码本身未变，不影响已签发的令牌）
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("未找到用户: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+
+        UserDetailsImpl updated = UserDetailsImpl.build(user);
+        userDetailsCache.evict(user.getId(), user.getUsername());
+        userDetailsCache.put(updated);
+        return updated;
     }
-} 
\ No newline at end of file
+}
@@ -13,7 +13,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -39,6 +38,9 @@ public class WebSecurityConfig implements WebMvcConfigurer {
     @Autowired
     private RateLimitInterceptor rateLimitInterceptor;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -49,7 +51,9 @@ public class WebSecurityConfig implements WebMvcConfigurer {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // 登录成功且哈希需要升级时（算法或参数变化），用新哈希替换数据库中的旧哈希
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         
         return authProvider;
     }
@@ -59,11 +63,6 @@ public class WebSecurityConfig implements WebMvcConfigurer {
         return authConfig.getAuthenticationManager();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http.csrf(csrf -> csrf.disable())
@@ -76,6 +75,7 @@ public class WebSecurityConfig implements WebMvcConfigurer {
                     .requestMatchers("/courses/**").permitAll()
                     .requestMatchers("/teachers/**").permitAll()
                     .requestMatchers("/faculties/**").permitAll()
+                    .requestMatchers("/search/**").permitAll()
                     .requestMatchers("/reviews/course/**").permitAll()
                     .requestMatchers("/reviews/teacher/**").permitAll()
                     .requestMatchers("/users/**").permitAll()
@@ -98,7 +98,7 @@ public class WebSecurityConfig implements WebMvcConfigurer {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:8080", "http://localhost:3000"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token"));
-        configuration.setExposedHeaders(Arrays.asList("x-auth-token"));
+        configuration.setExposedHeaders(Arrays.asList("x-auth-token", "X-RateLimit-Limit", "X-RateLimit-Remaining", "Retry-After"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -107,8 +107,9 @@ public class WebSecurityConfig implements WebMvcConfigurer {
     
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // 具体哪些路径限流、速率多少由 rate-limit.groups 配置决定
         registry.addInterceptor(rateLimitInterceptor)
-                .addPathPatterns("/auth/**", "/api/**")
+                .addPathPatterns("/**")
                 .excludePathPatterns("/auth/login", "/auth/register"); // 登录注册有单独的限制
     }
 } 
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.must.courseevaluation.security.jwt;
 
+import com.must.courseevaluation.security.TokenVersionCache;
+import com.must.courseevaluation.security.UserDetailsImpl;
 import com.must.courseevaluation.security.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +27,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -31,10 +37,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.parseValidatedClaims(jwt) : null;
+            UserDetails userDetails = claims != null ? resolveUser(claims) : null;
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -48,6 +53,22 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 令牌携带用户声明时直接构建用户信息，只需核对令牌版本（有缓存）；
+     * 旧令牌不含声明，回退到按用户名查库
+     */
+    private UserDetails resolveUser(Claims claims) {
+        UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+        if (userDetails == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        if (!tokenVersionCache.isCurrent(userDetails.getId(), userDetails.getTokenVersion())) {
+            logger.warn("令牌已失效（用户状态或权限已变更）: {}", userDetails.getUsername());
+            return null;
+        }
+        return userDetails;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
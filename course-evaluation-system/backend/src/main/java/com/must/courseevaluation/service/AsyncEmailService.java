@@ -1,5 +1,6 @@
 package com.must.courseevaluation.service;
 
+import com.must.courseevaluation.service.EmailTemplateService.Template;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.slf4j.Logger;
@@ -11,6 +12,7 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 @Service
@@ -24,6 +26,12 @@ public class AsyncEmailService {
     @Value("${spring.mail.username}")
     private String fromEmail;
     
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+    
+    @Autowired
+    private EmailTemplateService emailTemplateService;
+    
     /**
      * 异步发送HTML邮件
      */
@@ -52,41 +60,38 @@ public class AsyncEmailService {
      */
     @Async
     public CompletableFuture<Boolean> sendVerificationCodeEmailAsync(String to, String code) {
-        String subject = "课程评价系统 - 邮箱验证码";
-        String htmlContent = buildVerificationEmailContent(code);
+        String htmlContent = emailTemplateService.render(Template.VERIFICATION, Map.of("code", code));
         
-        return sendHtmlEmailAsync(to, subject, htmlContent);
+        return sendHtmlEmailAsync(to, Template.VERIFICATION.getSubject(), htmlContent);
+    }
+    
+    /**
+     * 将验证码邮件写入发件箱，由后台投递任务发送，不会在调用线程上连接SMTP
+     * 同一邮箱尚未发送的验证码邮件只更新为最新验证码，不重复发送
+     * @return 是否已接收；发件箱积压超过上限时返回false
+     */
+    public boolean submitVerificationCodeEmail(String to, String code) {
+        return submit(to, Template.VERIFICATION, Map.of("code", code), "verification:" + to);
     }
     
     /**
-     * 构建验证码邮件内容
+     * 评价收到回复的通知
      */
-    private String buildVerificationEmailContent(String code) {
-        return "<div style='background-color: #f4f7f9; padding: 20px; font-family: Arial, sans-serif;'>"
-                + "<div style='max-width: 600px; margin: 0 auto; background-color: #ffffff; border-radius: 10px; padding: 30px; box-shadow: 0 3px 6px rgba(0,0,0,0.1);'>"
-                + "<div style='text-align: center; margin-bottom: 30px;'>"
-                + "<h1 style='color: #2c3e50; margin: 0;'>课程评价系统</h1>"
-                + "<p style='color: #7f8c8d; margin: 5px 0 0 0;'>邮箱验证</p>"
-                + "</div>"
-                + "<h2 style='color: #2c3e50; margin-top: 0;'>邮箱验证码</h2>"
-                + "<p style='color: #555; font-size: 16px;'>尊敬的用户：</p>"
-                + "<p style='color: #555; font-size: 16px;'>您好！您正在注册课程评价系统账号，请使用以下验证码完成邮箱验证：</p>"
-                + "<div style='background-color: #f2f4f6; padding: 20px; border-radius: 8px; text-align: center; margin: 25px 0;'>"
-                + "<span style='color: #1e88e5; font-size: 32px; font-weight: bold; letter-spacing: 8px; font-family: monospace;'>" + code + "</span>"
-                + "</div>"
-                + "<div style='background-color: #fff3cd; border: 1px solid #ffeaa7; border-radius: 5px; padding: 15px; margin: 20px 0;'>"
-                + "<p style='color: #856404; margin: 0; font-size: 14px;'><strong>安全提示：</strong></p>"
-                + "<ul style='color: #856404; margin: 5px 0 0 0; padding-left: 20px; font-size: 14px;'>"
-                + "<li>验证码有效期为10分钟</li>"
-                + "<li>请勿将验证码泄露给他人</li>"
-                + "<li>如非本人操作，请忽略此邮件</li>"
-                + "</ul>"
-                + "</div>"
-                + "<div style='margin-top: 40px; padding-top: 20px; border-top: 1px solid #eee; color: #999; font-size: 13px; text-align: center;'>"
-                + "<p>这是一封自动发送的邮件，请勿直接回复。</p>"
-                + "<p>© " + java.time.Year.now().getValue() + " 课程评价系统 - 保护您的学习体验</p>"
-                + "</div>"
-                + "</div>"
-                + "</div>";
+    public boolean submitReviewReplyEmail(String to, String username, String courseName, String replyContent) {
+        return submit(to, Template.REVIEW_REPLY,
+                Map.of("username", username, "courseName", courseName, "replyContent", replyContent), null);
+    }
+    
+    /**
+     * 评价未通过审核的通知，在调用方事务中写入发件箱
+     */
+    public boolean submitModerationNoticeEmail(String to, String username, String courseName, String reviewContent) {
+        return submit(to, Template.MODERATION_NOTICE,
+                Map.of("username", username, "courseName", courseName, "reviewContent", reviewContent), null);
+    }
+    
+    private boolean submit(String to, Template template, Map<String, String> variables, String dedupeKey) {
+        String body = emailTemplateService.render(template, variables);
+        return emailOutboxService.enqueue(to, template.getSubject(), body, dedupeKey);
     }
-}
\ No newline at end of file
+}
@@ -1,118 +1,583 @@
 package com.must.courseevaluation.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.must.courseevaluation.model.Course;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+/**
+ * 两级缓存：进程内Caffeine为L1，Redis为各节点共享的L2
+ * 读取先查L1，未命中再查L2并回填L1；清除缓存时同时删除L2，并通过Redis发布/订阅通知所有节点清除L1。
+ * 缓存是尽力而为的，Redis不可用时读写退化为只使用L1，不影响业务请求。
+ * 课程详情和评分统计通过getOrLoad读取，带有防击穿保护：节点内同一键只有一个加载请求，
+ * 过期前按XFetch概率提前刷新，过期后由抢到Redis锁的请求重算，其余请求继续使用旧值。
+ */
 @Service
-public class CacheService {
-    
+public class CacheService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
+
+    // 缓存失效广播频道
+    public static final String INVALIDATION_CHANNEL = "cache:invalidate";
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
-    
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
     private static final String COURSE_CACHE_PREFIX = "course:";
     private static final String TEACHER_CACHE_PREFIX = "teacher:";
     private static final String RATING_CACHE_PREFIX = "rating:";
     private static final String FACULTY_CACHE_PREFIX = "faculty:";
     
+    // 课程列表缓存区域：键中带版本号，整体失效时只需递增版本
+    private static final String COURSE_LIST_CACHE_PREFIX = "courses:list:";
+    private static final String COURSE_LIST_VERSION_KEY = "courses:list:version";
+    private static final String COURSE_SEARCH_CACHE_PREFIX = "courses:search:";
+    private static final String COURSE_SEARCH_VERSION_KEY = "courses:search:version";
+    private static final int COURSE_SEARCH_EXPIRE_MINUTES = 10;
+    // 课程目录的总数缓存，与搜索结果共用版本号，课程变化时一并失效（按评分过滤的总数不缓存）
+    private static final String CATALOG_COUNT_CACHE_PREFIX = "courses:catalog-count:";
+    private static final int CATALOG_COUNT_EXPIRE_MINUTES = 5;
+    private static final int MAX_CACHED_KEYWORD_LENGTH = 50;
+
     // 缓存过期时间（小时）
     private static final int CACHE_EXPIRE_HOURS = 2;
-    
+    private static final int RATING_EXPIRE_MINUTES = 30;
+
+    // 重算锁前缀及锁的最长持有时间
+    private static final String LOAD_LOCK_PREFIX = "lock:";
+    private static final Duration LOAD_LOCK_TIMEOUT = Duration.ofSeconds(10);
+    // 比较令牌后删除，值不匹配说明锁已过期并被他人持有
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+    // XFetch参数，越大越倾向于提前刷新
+    private static final double XFETCH_BETA = 1.0;
+
+    private final Cache<String, Object> localCache;
+
+    // 本节点正在加载的键，同一键的并发请求共享同一次加载
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+
+    public CacheService(@Value("${cache.local.maximum-size:10000}") long localMaximumSize,
+                        @Value("${cache.local.ttl:60s}") Duration localTtl) {
+        // L1的TTL远短于L2，即使漏收失效广播也只会短暂读到旧数据
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .build();
+    }
+
     /**
      * 缓存课程信息
      */
     public void cacheCourse(Long courseId, Object courseData) {
-        String key = COURSE_CACHE_PREFIX + courseId;
-        redisTemplate.opsForValue().set(key, courseData, CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
+        putEntry(COURSE_CACHE_PREFIX + courseId, courseData, 0, TimeUnit.HOURS.toMillis(CACHE_EXPIRE_HOURS));
     }
-    
+
     /**
      * 获取缓存的课程信息
      */
     public Object getCachedCourse(Long courseId) {
-        String key = COURSE_CACHE_PREFIX + courseId;
-        return redisTemplate.opsForValue().get(key);
+        return valueOf(getEntry(COURSE_CACHE_PREFIX + courseId));
     }
-    
+
+    /**
+     * 读取课程信息，未命中或需要刷新时通过loader加载
+     */
+    public <T> T getOrLoadCourse(Long courseId, Supplier<T> loader) {
+        return getOrLoad(COURSE_CACHE_PREFIX + courseId, TimeUnit.HOURS.toMillis(CACHE_EXPIRE_HOURS), loader);
+    }
+
     /**
      * 缓存教师信息
      */
     public void cacheTeacher(Long teacherId, Object teacherData) {
-        String key = TEACHER_CACHE_PREFIX + teacherId;
-        redisTemplate.opsForValue().set(key, teacherData, CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
+        put(TEACHER_CACHE_PREFIX + teacherId, teacherData, CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
     }
-    
+
     /**
      * 获取缓存的教师信息
      */
     public Object getCachedTeacher(Long teacherId) {
-        String key = TEACHER_CACHE_PREFIX + teacherId;
-        return redisTemplate.opsForValue().get(key);
+        return get(TEACHER_CACHE_PREFIX + teacherId);
     }
-    
+
     /**
      * 缓存评分统计
      */
     public void cacheRating(String type, Long id, Object ratingData) {
-        String key = RATING_CACHE_PREFIX + type + ":" + id;
-        redisTemplate.opsForValue().set(key, ratingData, 30, TimeUnit.MINUTES); // 评分缓存30分钟
+        putEntry(RATING_CACHE_PREFIX + type + ":" + id, ratingData, 0, TimeUnit.MINUTES.toMillis(RATING_EXPIRE_MINUTES));
     }
-    
+
     /**
      * 获取缓存的评分统计
      */
     public Object getCachedRating(String type, Long id) {
-        String key = RATING_CACHE_PREFIX + type + ":" + id;
-        return redisTemplate.opsForValue().get(key);
+        return valueOf(getEntry(RATING_CACHE_PREFIX + type + ":" + id));
     }
-    
+
+    /**
+     * 读取评分统计，未命中或需要刷新时通过loader加载
+     */
+    public <T> T getOrLoadRating(String type, Long id, Supplier<T> loader) {
+        return getOrLoad(RATING_CACHE_PREFIX + type + ":" + id, TimeUnit.MINUTES.toMillis(RATING_EXPIRE_MINUTES), loader);
+    }
+
     /**
      * 缓存院系列表
      */
     public void cacheFaculties(Object facultiesData) {
-        String key = FACULTY_CACHE_PREFIX + "all";
-        redisTemplate.opsForValue().set(key, facultiesData, CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
+        put(FACULTY_CACHE_PREFIX + "all", facultiesData, CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
     }
-    
+
     /**
      * 获取缓存的院系列表
      */
     public Object getCachedFaculties() {
-        String key = FACULTY_CACHE_PREFIX + "all";
-        return redisTemplate.opsForValue().get(key);
+        return get(FACULTY_CACHE_PREFIX + "all");
     }
-    
+
     /**
      * 清除相关缓存
      */
     public void evictCourseCache(Long courseId) {
-        String key = COURSE_CACHE_PREFIX + courseId;
-        redisTemplate.delete(key);
-        
         // 同时清除相关的评分缓存
-        String ratingKey = RATING_CACHE_PREFIX + "course:" + courseId;
-        redisTemplate.delete(ratingKey);
+        evict(COURSE_CACHE_PREFIX + courseId, RATING_CACHE_PREFIX + "course:" + courseId);
     }
-    
+
     /**
      * 清除教师相关缓存
      */
     public void evictTeacherCache(Long teacherId) {
-        String key = TEACHER_CACHE_PREFIX + teacherId;
-        redisTemplate.delete(key);
-        
         // 同时清除相关的评分缓存
-        String ratingKey = RATING_CACHE_PREFIX + "teacher:" + teacherId;
-        redisTemplate.delete(ratingKey);
+        evict(TEACHER_CACHE_PREFIX + teacherId, RATING_CACHE_PREFIX + "teacher:" + teacherId);
     }
-    
+
+    /**
+     * 事务提交后清除一批课程和教师的评分缓存，每个目标只清除一次
+     */
+    public void evictRatingCaches(Collection<Long> courseIds, Collection<Long> teacherIds) {
+        String[] keys = Stream.concat(
+                courseIds.stream().map(id -> RATING_CACHE_PREFIX + "course:" + id),
+                teacherIds.stream().map(id -> RATING_CACHE_PREFIX + "teacher:" + id))
+                .toArray(String[]::new);
+        if (keys.length > 0) {
+            runAfterCommit(() -> evict(keys));
+        }
+    }
+
     /**
      * 清除所有院系缓存
      */
     public void evictFacultiesCache() {
-        String key = FACULTY_CACHE_PREFIX + "all";
-        redisTemplate.delete(key);
+        evict(FACULTY_CACHE_PREFIX + "all");
+    }
+
+    /**
+     * 课程列表的缓存范围
+     */
+    public static String allCoursesScope() {
+        return "all";
+    }
+
+    public static String facultyCoursesScope(Long facultyId) {
+        return "faculty:" + facultyId;
+    }
+
+    public static String teacherCoursesScope(Long teacherId) {
+        return "teacher:" + teacherId;
+    }
+
+    public static String typeCoursesScope(String type) {
+        return "type:" + type;
+    }
+
+    /**
+     * 课程所在的全部列表缓存范围（可修改，调用方可合并变更前后的范围）
+     */
+    public static Set<String> courseListScopes(Course course) {
+        Set<String> scopes = new LinkedHashSet<>();
+        scopes.add(allCoursesScope());
+        if (course.getFaculty() != null) {
+            scopes.add(facultyCoursesScope(course.getFaculty().getId()));
+        }
+        if (course.getTeacher() != null) {
+            scopes.add(teacherCoursesScope(course.getTeacher().getId()));
+        }
+        if (course.getType() != null) {
+            scopes.add(typeCoursesScope(course.getType().name()));
+        }
+        return scopes;
+    }
+
+    /**
+     * 读取课程列表，未命中时通过loader加载并缓存
+     */
+    public <T> T getOrLoadCourseList(String scope, Supplier<T> loader) {
+        return getOrLoadAt(courseListKey(scope), CACHE_EXPIRE_HOURS, TimeUnit.HOURS, loader);
+    }
+
+    /**
+     * 读取课程搜索结果，关键词过长时不缓存
+     */
+    public <T> T getOrLoadCourseSearch(String keyword, Supplier<T> loader) {
+        String key = courseSearchKey(keyword);
+        if (key == null) {
+            return loader.get();
+        }
+        return getOrLoadAt(key, COURSE_SEARCH_EXPIRE_MINUTES, TimeUnit.MINUTES, loader);
+    }
+
+    /**
+     * 读取课程目录在某组过滤条件下的总数，未命中时通过loader统计
+     */
+    public long getOrLoadCatalogCount(String filterKey, LongSupplier loader) {
+        String key = catalogCountKey(filterKey);
+        Object cached = get(key);
+        if (cached instanceof Number number) {
+            return number.longValue();
+        }
+        long count = loader.getAsLong();
+        put(key, count, CATALOG_COUNT_EXPIRE_MINUTES, TimeUnit.MINUTES);
+        return count;
+    }
+
+    /**
+     * 精确清除受影响的课程列表，并使全部搜索结果失效
+     * 在事务中调用时延迟到提交之后执行，避免并发读取在提交前回填旧数据
+     */
+    public void evictCourseLists(Collection<String> scopes) {
+        runAfterCommit(() -> {
+            evict(scopes.stream().map(this::courseListKey).toArray(String[]::new));
+            bumpVersion(COURSE_SEARCH_VERSION_KEY);
+        });
+    }
+
+    /**
+     * 使所有课程列表和搜索结果失效（教师、院系信息变化时课程列表中的冗余字段也会变化）
+     */
+    public void evictAllCourseLists() {
+        runAfterCommit(() -> {
+            bumpVersion(COURSE_LIST_VERSION_KEY);
+            bumpVersion(COURSE_SEARCH_VERSION_KEY);
+        });
+    }
+
+    /**
+     * 收到其他节点（或本节点）的失效广播，清除本地L1
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        localCache.invalidate(key);
+    }
+
+    private String courseListKey(String scope) {
+        return COURSE_LIST_CACHE_PREFIX + "v" + currentVersion(COURSE_LIST_VERSION_KEY) + ":" + scope;
+    }
+
+    private String catalogCountKey(String filterKey) {
+        return CATALOG_COUNT_CACHE_PREFIX + "v" + currentVersion(COURSE_SEARCH_VERSION_KEY) + ":" + filterKey;
+    }
+
+    private String courseSearchKey(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        String normalized = keyword.trim();
+        if (normalized.isEmpty() || normalized.length() > MAX_CACHED_KEYWORD_LENGTH) {
+            return null;
+        }
+        return COURSE_SEARCH_CACHE_PREFIX + "v" + currentVersion(COURSE_SEARCH_VERSION_KEY) + ":" + normalized;
+    }
+
+    /**
+     * 读取区域版本号，版本号本身也缓存在L1中，递增时通过失效广播同步
+     */
+    private long currentVersion(String versionKey) {
+        Object cached = localCache.getIfPresent(versionKey);
+        if (cached instanceof Long version) {
+            return version;
+        }
+
+        long version = 0;
+        try {
+            String value = stringRedisTemplate.opsForValue().get(versionKey);
+            if (value != null) {
+                version = Long.parseLong(value);
+            }
+        } catch (Exception e) {
+            logger.warn("读取缓存版本失败, key: {}, 原因: {}", versionKey, e.getMessage());
+        }
+        localCache.put(versionKey, version);
+        return version;
+    }
+
+    private void bumpVersion(String versionKey) {
+        localCache.invalidate(versionKey);
+        try {
+            stringRedisTemplate.opsForValue().increment(versionKey);
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, versionKey);
+        } catch (Exception e) {
+            logger.warn("递增缓存版本失败, key: {}, 原因: {}", versionKey, e.getMessage());
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 读写版本化区域：键（含版本号）在加载前确定一次，加载期间版本被递增时结果写在旧版本下，
+     * 不会以新版本的键缓存加载时读到的旧数据
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T getOrLoadAt(String key, long timeout, TimeUnit unit, Supplier<T> loader) {
+        Object cached = get(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T value = loader.get();
+        put(key, value, timeout, unit);
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrLoad(String key, long ttlMillis, Supplier<T> loader) {
+        return (T) getOrLoadValue(key, ttlMillis, loader);
+    }
+
+    private Object getOrLoadValue(String key, long ttlMillis, Supplier<?> loader) {
+        CacheEntry entry = getEntry(key);
+        if (entry == null) {
+            return load(key, ttlMillis, loader);
+        }
+        if (!shouldRefresh(entry)) {
+            return entry.getValue();
+        }
+
+        // 需要刷新但旧值仍可用：本节点已有加载或其他节点持有重算锁时直接返回旧值
+        if (inFlightLoads.containsKey(key)) {
+            return entry.getValue();
+        }
+        String lockToken = tryLoadLock(key);
+        if (lockToken == null) {
+            return entry.getValue();
+        }
+        try {
+            return load(key, ttlMillis, loader);
+        } finally {
+            releaseLoadLock(key, lockToken);
+        }
+    }
+
+    /**
+     * 节点内单飞加载：同一键只执行一次loader，并发请求等待同一结果
+     */
+    private Object load(String key, long ttlMillis, Supplier<?> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlightLoads.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Object value = loader.get();
+            putEntry(key, value, System.currentTimeMillis() - start, ttlMillis);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // 包括Error在内的任何失败都要完成future，否则等待同一键的请求会一直阻塞
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, future);
+        }
+    }
+
+    /**
+     * XFetch：剩余时间越短、重算越慢，越可能提前刷新；已过期时一定刷新
+     */
+    private boolean shouldRefresh(CacheEntry entry) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        double earlyMillis = -entry.getComputeMillis() * XFETCH_BETA * Math.log(random);
+        return System.currentTimeMillis() + earlyMillis >= entry.getExpiresAt();
+    }
+
+    /**
+     * 抢占重算锁，成功时返回本次持有的令牌，锁被其他请求持有时返回null
+     */
+    private String tryLoadLock(String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LOAD_LOCK_PREFIX + key, token, LOAD_LOCK_TIMEOUT);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (Exception e) {
+            // Redis不可用时由本节点自行刷新，节点内仍有单飞保护
+            logger.warn("获取缓存重算锁失败, key: {}, 原因: {}", key, e.getMessage());
+            return token;
+        }
+    }
+
+    /**
+     * 只删除自己持有的锁：加载超过锁的有效期后，锁可能已被其他请求重新获取
+     */
+    private void releaseLoadLock(String key, String token) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(LOAD_LOCK_PREFIX + key), token);
+        } catch (Exception e) {
+            logger.warn("释放缓存重算锁失败, key: {}, 原因: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取带逻辑过期时间的缓存项，L1中的项需要刷新时先看L2是否已被其他节点刷新
+     */
+    private CacheEntry getEntry(String key) {
+        Object local = localCache.getIfPresent(key);
+        if (local instanceof CacheEntry entry && System.currentTimeMillis() < entry.getExpiresAt()) {
+            return entry;
+        }
+
+        Object remote;
+        try {
+            remote = redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            logger.warn("读取Redis缓存失败, key: {}, 原因: {}", key, e.getMessage());
+            return local instanceof CacheEntry entry ? entry : null;
+        }
+
+        if (remote instanceof CacheEntry entry) {
+            localCache.put(key, entry);
+            return entry;
+        }
+        return local instanceof CacheEntry entry ? entry : null;
+    }
+
+    /**
+     * Redis中的物理过期时间是逻辑过期时间的两倍，逻辑过期后的一段时间内仍可返回旧值
+     */
+    private void putEntry(String key, Object value, long computeMillis, long ttlMillis) {
+        if (value == null) {
+            return;
+        }
+        CacheEntry entry = new CacheEntry(value, computeMillis, System.currentTimeMillis() + ttlMillis);
+        put(key, entry, ttlMillis * 2, TimeUnit.MILLISECONDS);
+    }
+
+    private static Object valueOf(CacheEntry entry) {
+        return entry != null ? entry.getValue() : null;
+    }
+
+    private Object get(String key) {
+        Object value = localCache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        try {
+            value = redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            logger.warn("读取Redis缓存失败, key: {}, 原因: {}", key, e.getMessage());
+            return null;
+        }
+
+        if (value != null) {
+            localCache.put(key, value);
+        }
+        return value;
+    }
+
+    private void put(String key, Object value, long timeout, TimeUnit unit) {
+        if (value == null) {
+            return;
+        }
+        localCache.put(key, value);
+        try {
+            redisTemplate.opsForValue().set(key, value, timeout, unit);
+        } catch (Exception e) {
+            logger.warn("写入Redis缓存失败, key: {}, 原因: {}", key, e.getMessage());
+        }
+    }
+
+    private void evict(String... keys) {
+        for (String key : keys) {
+            localCache.invalidate(key);
+        }
+        try {
+            for (String key : keys) {
+                redisTemplate.delete(key);
+                stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, key);
+            }
+        } catch (Exception e) {
+            logger.warn("清除Redis缓存失败, 原因: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 带逻辑过期时间和重算耗时的缓存项
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheEntry {
+        private Object value;
+        private long computeMillis;
+        private long expiresAt;
     }
-}
\ No newline at end of file
+}
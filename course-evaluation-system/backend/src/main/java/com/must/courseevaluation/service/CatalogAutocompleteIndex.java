@@ -0,0 +1,434 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.dto.AutocompleteSuggestionDto;
+import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.model.Faculty;
+import com.must.courseevaluation.model.RatingAggregate;
+import com.must.courseevaluation.model.Teacher;
+import com.must.courseevaluation.repository.CourseRepository;
+import com.must.courseevaluation.repository.FacultyRepository;
+import com.must.courseevaluation.repository.RatingAggregateRepository;
+import com.must.courseevaluation.repository.TeacherRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 课程、教师、院系的内存倒排索引，用于搜索框自动补全
+ * 分词：中文等表意文字切成单字和二元组，拉丁字母和数字按词切出全部前缀；
+ * 查询的每个词元都必须命中，结果按评价数、平均分排序取前k个。
+ * 启动时全量构建，课程/教师/院系写操作提交后增量更新，评分热度定时从评分聚合表刷新。
+ * 各节点各有一份索引：本节点的增量更新通过缓存失效频道广播，其他节点收到后从数据库重新读取该条目；
+ * 广播可能丢失（Redis不可用），因此另外定时全量重建兜底。
+ */
+@Service
+public class CatalogAutocompleteIndex implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogAutocompleteIndex.class);
+
+    public static final int DEFAULT_LIMIT = 8;
+    public static final int MAX_LIMIT = 20;
+    private static final int MAX_QUERY_LENGTH = 50;
+    // 拉丁词最长索引的前缀长度，更长的输入按此截断后匹配
+    private static final int MAX_PREFIX_LENGTH = 20;
+
+    // 失效广播消息：autocomplete:<节点ID>:<类型>:<ID>，节点ID用于跳过本节点自己发出的消息
+    private static final String INVALIDATION_PREFIX = "autocomplete:";
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private static final String COURSE = "course";
+    private static final String TEACHER = "teacher";
+    private static final String FACULTY = "faculty";
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry e) -> e.popularity().reviewCount())
+            .thenComparingDouble(e -> e.popularity().averageRating())
+            .reversed()
+            .thenComparing(Entry::label);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private FacultyRepository facultyRepository;
+
+    @Autowired
+    private RatingAggregateRepository ratingAggregateRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 词元 -> 文档键（如 course:12）
+    private final ConcurrentHashMap<String, Set<String>> postings = new ConcurrentHashMap<>();
+    // 文档键 -> 文档
+    private final ConcurrentHashMap<String, Document> documents = new ConcurrentHashMap<>();
+    // 文档键 -> 评价数和平均分，整体替换
+    private volatile Map<String, Popularity> popularity = Collections.emptyMap();
+
+    // 写操作串行执行，读操作不加锁
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private record Document(String type, Long id, String label, String subtitle, String normalizedText,
+                            Set<String> tokens) {
+        String key() {
+            return type + ":" + id;
+        }
+    }
+
+    private record Popularity(long reviewCount, double averageRating) {
+        static final Popularity NONE = new Popularity(0, 0.0);
+    }
+
+    private record Entry(Document document, Popularity popularity) {
+        String label() {
+            return document.label();
+        }
+    }
+
+    /**
+     * 全量重建；定时执行用于补上丢失的广播（读取快照与加锁之间提交的增量更新可能被覆盖，下一次重建时补上）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${autocomplete.rebuild-interval-ms:900000}",
+               fixedDelayString = "${autocomplete.rebuild-interval-ms:900000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        List<Document> all = new ArrayList<>();
+        courseRepository.findAll().forEach(course -> all.add(courseDocument(course)));
+        teacherRepository.findAll().forEach(teacher -> all.add(teacherDocument(teacher)));
+        facultyRepository.findAll().forEach(faculty -> all.add(facultyDocument(faculty)));
+
+        writeLock.lock();
+        try {
+            postings.clear();
+            documents.clear();
+            all.forEach(this::addDocument);
+        } finally {
+            writeLock.unlock();
+        }
+        refreshPopularity();
+        logger.info("自动补全索引构建完成: {} 个条目, {} 个词元", documents.size(), postings.size());
+    }
+
+    @Scheduled(initialDelayString = "${autocomplete.popularity-refresh-ms:60000}",
+               fixedDelayString = "${autocomplete.popularity-refresh-ms:60000}")
+    public void refreshPopularity() {
+        try {
+            Map<String, Popularity> refreshed = new HashMap<>();
+            for (RatingAggregate aggregate : ratingAggregateRepository.findAll()) {
+                if (aggregate.getReviewCount() <= 0) {
+                    continue;
+                }
+                String type = aggregate.getTargetType() == RatingAggregate.TargetType.COURSE ? COURSE : TEACHER;
+                double average = (double) aggregate.getRatingSum() / aggregate.getReviewCount();
+                refreshed.put(type + ":" + aggregate.getTargetId(),
+                        new Popularity(aggregate.getReviewCount(), Math.round(average * 10) / 10.0));
+            }
+            popularity = refreshed;
+        } catch (Exception e) {
+            // 刷新失败时继续使用上一次的排序数据
+            logger.warn("自动补全热度刷新失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 前缀自动补全，空查询返回空列表
+     */
+    public List<AutocompleteSuggestionDto> suggest(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("搜索关键词不能超过" + MAX_QUERY_LENGTH + "个字符");
+        }
+        int k = limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+
+        String normalized = normalize(query);
+        Set<String> queryTokens = new LinkedHashSet<>();
+        List<String> cjkRuns = new ArrayList<>();
+        tokenize(normalized, true, queryTokens, cjkRuns);
+        if (queryTokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 从最短的倒排表开始求交集
+        List<Set<String>> lists = new ArrayList<>(queryTokens.size());
+        for (String token : queryTokens) {
+            Set<String> list = postings.get(token);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Map<String, Popularity> currentPopularity = popularity;
+        PriorityQueue<Entry> topK = new PriorityQueue<>(k + 1, RANKING.reversed());
+        candidates:
+        for (String key : lists.get(0)) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(key)) {
+                    continue candidates;
+                }
+            }
+            Document document = documents.get(key);
+            if (document == null) {
+                continue;
+            }
+            // 二元组都命中不代表连续出现，中文片段需再校验一次
+            for (String run : cjkRuns) {
+                if (!document.normalizedText().contains(run)) {
+                    continue candidates;
+                }
+            }
+            topK.add(new Entry(document, currentPopularity.getOrDefault(key, Popularity.NONE)));
+            if (topK.size() > k) {
+                topK.poll();
+            }
+        }
+
+        List<Entry> ranked = new ArrayList<>(topK);
+        ranked.sort(RANKING);
+        List<AutocompleteSuggestionDto> suggestions = new ArrayList<>(ranked.size());
+        for (Entry entry : ranked) {
+            Document d = entry.document();
+            suggestions.add(new AutocompleteSuggestionDto(d.type(), d.id(), d.label(), d.subtitle(),
+                    entry.popularity().reviewCount(), entry.popularity().averageRating()));
+        }
+        return suggestions;
+    }
+
+    public void indexCourse(Course course) {
+        Document document = courseDocument(course);
+        runAfterCommit(document.key(), () -> replaceDocument(document.key(), document));
+    }
+
+    public void removeCourse(Long courseId) {
+        String key = COURSE + ":" + courseId;
+        runAfterCommit(key, () -> replaceDocument(key, null));
+    }
+
+    public void indexTeacher(Teacher teacher) {
+        Document document = teacherDocument(teacher);
+        runAfterCommit(document.key(), () -> replaceDocument(document.key(), document));
+    }
+
+    public void removeTeacher(Long teacherId) {
+        String key = TEACHER + ":" + teacherId;
+        runAfterCommit(key, () -> replaceDocument(key, null));
+    }
+
+    public void indexFaculty(Faculty faculty) {
+        Document document = facultyDocument(faculty);
+        runAfterCommit(document.key(), () -> replaceDocument(document.key(), document));
+    }
+
+    public void removeFaculty(Long facultyId) {
+        String key = FACULTY + ":" + facultyId;
+        runAfterCommit(key, () -> replaceDocument(key, null));
+    }
+
+    /**
+     * 收到其他节点的变更广播，从数据库重新读取该条目；已删除时从索引中移除
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!body.startsWith(INVALIDATION_PREFIX)) {
+            return;
+        }
+        String[] parts = body.substring(INVALIDATION_PREFIX.length()).split(":");
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        try {
+            reload(parts[1], Long.valueOf(parts[2]));
+        } catch (Exception e) {
+            // 重新读取失败时等待下一次全量重建
+            logger.warn("自动补全条目更新失败: {}, 原因: {}", body, e.getMessage());
+        }
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private void reload(String type, Long id) {
+        String key = type + ":" + id;
+        Document document = switch (type) {
+            case COURSE -> courseRepository.findById(id).map(this::courseDocument).orElse(null);
+            case TEACHER -> teacherRepository.findById(id).map(this::teacherDocument).orElse(null);
+            case FACULTY -> facultyRepository.findById(id).map(this::facultyDocument).orElse(null);
+            default -> throw new IllegalArgumentException("未知的条目类型: " + type);
+        };
+        replaceDocument(key, document);
+    }
+
+    private Document courseDocument(Course course) {
+        // 课程按名称和代码检索
+        return document(COURSE, course.getId(), course.getName(), course.getCode(),
+                course.getName() + " " + course.getCode());
+    }
+
+    private Document teacherDocument(Teacher teacher) {
+        return document(TEACHER, teacher.getId(), teacher.getName(), teacher.getTitle(), teacher.getName());
+    }
+
+    private Document facultyDocument(Faculty faculty) {
+        return document(FACULTY, faculty.getId(), faculty.getName(), null, faculty.getName());
+    }
+
+    private Document document(String type, Long id, String label, String subtitle, String text) {
+        String normalizedText = normalize(text);
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(normalizedText, false, tokens, null);
+        return new Document(type, id, label, subtitle, normalizedText, tokens);
+    }
+
+    private void replaceDocument(String key, Document document) {
+        writeLock.lock();
+        try {
+            Document old = documents.remove(key);
+            if (old != null) {
+                for (String token : old.tokens()) {
+                    Set<String> list = postings.get(token);
+                    if (list != null) {
+                        list.remove(key);
+                        if (list.isEmpty()) {
+                            postings.remove(token);
+                        }
+                    }
+                }
+            }
+            if (document != null) {
+                addDocument(document);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void addDocument(Document document) {
+        for (String token : document.tokens()) {
+            postings.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(document.key());
+        }
+        documents.put(document.key(), document);
+    }
+
+    private static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            sb.append(SensitiveWordMatcher.normalize(text.charAt(i)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 切分词元
+     * 建索引时：中文片段产生全部单字和二元组，拉丁词产生全部前缀；
+     * 查询时：中文片段只取二元组（单字片段取单字），拉丁词取整个词作为前缀，中文片段另外收集到cjkRuns用于校验
+     */
+    private static void tokenize(String text, boolean query, Set<String> tokens, List<String> cjkRuns) {
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int start = i;
+                while (i < text.length() && isCjk(text.charAt(i))) {
+                    i++;
+                }
+                String run = text.substring(start, i);
+                if (query) {
+                    if (run.length() == 1) {
+                        tokens.add(run);
+                    }
+                    cjkRuns.add(run);
+                } else {
+                    for (int j = 0; j < run.length(); j++) {
+                        tokens.add(run.substring(j, j + 1));
+                    }
+                }
+                for (int j = 0; j + 2 <= run.length(); j++) {
+                    tokens.add(run.substring(j, j + 2));
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < text.length() && Character.isLetterOrDigit(text.charAt(i)) && !isCjk(text.charAt(i))) {
+                    i++;
+                }
+                String word = text.substring(start, Math.min(i, start + MAX_PREFIX_LENGTH));
+                if (query) {
+                    tokens.add(word);
+                } else {
+                    for (int len = 1; len <= word.length(); len++) {
+                        tokens.add(word.substring(0, len));
+                    }
+                }
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.isIdeographic(c)
+                || Character.UnicodeScript.of(c) == Character.UnicodeScript.HIRAGANA
+                || Character.UnicodeScript.of(c) == Character.UnicodeScript.KATAKANA
+                || Character.UnicodeScript.of(c) == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 事务提交后更新本节点索引并通知其他节点
+     */
+    private void runAfterCommit(String key, Runnable action) {
+        Runnable updateAndPublish = () -> {
+            action.run();
+            publish(key);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    updateAndPublish.run();
+                }
+            });
+        } else {
+            updateAndPublish.run();
+        }
+    }
+
+    private void publish(String key) {
+        try {
+            stringRedisTemplate.convertAndSend(CacheService.INVALIDATION_CHANNEL, INVALIDATION_PREFIX + nodeId + ":" + key);
+        } catch (Exception e) {
+            logger.warn("广播自动补全变更失败, key: {}, 原因: {}", key, e.getMessage());
+        }
+    }
+}
@@ -3,46 +3,44 @@ package com.must.courseevaluation.service;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.regex.Pattern;
 
 @Service
 public class ContentFilterService {
     
-    // 敏感词列表
-    private final List<String> sensitiveWords = Arrays.asList(
+    // 内置默认敏感词，仅在数据库词表为空时写入
+    private static final List<String> DEFAULT_SENSITIVE_WORDS = Arrays.asList(
         "傻逼", "操你", "他妈的", "妈的", "狗日", "混蛋", "王八蛋", 
         "fuck", "shit", "damn", "asshole", "bitch", 
         "废物", "垃圾", "sb", "tmb", "gun"
     );
     
+    // 预编译的匹配器，词表变更时整体替换，读取方无需加锁
+    private volatile SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(DEFAULT_SENSITIVE_WORDS);
+    
     // 检查评论是否包含敏感词
     public boolean containsSensitiveContent(String content) {
-        if (content == null || content.isEmpty()) {
-            return false;
-        }
-        
-        String lowerContent = content.toLowerCase();
-        return sensitiveWords.stream()
-                .anyMatch(lowerContent::contains);
+        return matcher.containsAny(content);
     }
     
-    // 过滤敏感内容
+    // 过滤敏感内容，敏感词的每个字符替换为星号
     public String filterContent(String content) {
-        if (content == null || content.isEmpty()) {
-            return content;
-        }
-        
-        String filteredContent = content;
-        for (String word : sensitiveWords) {
-            // 创建与敏感词长度相同的星号字符串
-            String replacement = "*".repeat(word.length());
-            // 替换敏感词（忽略大小写）
-            filteredContent = Pattern.compile(word, Pattern.CASE_INSENSITIVE)
-                    .matcher(filteredContent)
-                    .replaceAll(replacement);
-        }
-        
-        return filteredContent;
+        return matcher.mask(content, '*');
+    }
+    
+    /**
+     * 用新的词表重建匹配器并原子替换，正在进行的过滤继续使用旧匹配器
+     */
+    public void updateSensitiveWords(Collection<String> words) {
+        matcher = SensitiveWordMatcher.compile(words);
+    }
+    
+    public List<String> getDefaultSensitiveWords() {
+        return DEFAULT_SENSITIVE_WORDS;
+    }
+    
+    public int getSensitiveWordCount() {
+        return matcher.size();
     }
-} 
\ No newline at end of file
+}
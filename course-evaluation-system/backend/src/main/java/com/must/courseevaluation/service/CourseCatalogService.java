@@ -0,0 +1,289 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.dto.CatalogCursor;
+import com.must.courseevaluation.dto.CatalogPageDto;
+import com.must.courseevaluation.dto.CourseCatalogQuery;
+import com.must.courseevaluation.dto.CourseDto;
+import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.model.RatingAggregate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.JpaEntityJoin;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.sqm.tree.SqmJoinType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 课程目录查询
+ * 过滤条件（院系、教师、类型、学分范围、最低评分）和排序键组合成一条Criteria查询，
+ * 评分来自内连接的评分聚合行（每门课程都有一行）；按 (排序值, id) 做游标分页，id与排序值同方向，
+ * 按评分或评价数排序时可沿 rating_aggregates 的 (target_type, avg_rating|review_count, target_id) 索引正向或反向扫描。
+ * 总数按过滤条件短时间缓存。
+ */
+@Service
+public class CourseCatalogService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 排序键及其默认方向
+     */
+    public enum SortKey {
+        RATING(true),
+        REVIEWS(true),
+        CODE(false);
+
+        private final boolean defaultDescending;
+
+        SortKey(boolean defaultDescending) {
+            this.defaultDescending = defaultDescending;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Transactional(readOnly = true)
+    public CatalogPageDto<CourseDto> query(CourseCatalogQuery query) {
+        SortKey sortKey = parseSort(query.getSort());
+        boolean descending = parseDirection(query.getDirection(), sortKey);
+        Course.CourseType type = parseType(query.getType());
+        validateRanges(query);
+        int pageSize = normalizePageSize(query.getSize());
+
+        CatalogCursor after = null;
+        if (query.getCursor() != null && !query.getCursor().isEmpty()) {
+            after = CatalogCursor.decode(query.getCursor());
+            if (!after.getSort().equals(sortKey.name()) || after.isDescending() != descending) {
+                throw new IllegalArgumentException("分页游标与当前排序方式不匹配");
+            }
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<Course> course = cq.from(Course.class);
+        course.fetch("faculty", JoinType.LEFT);
+        course.fetch("teacher", JoinType.LEFT);
+        JpaEntityJoin<RatingAggregate> aggregate = joinAggregate(cb, course);
+        Expression<?> sortValue = sortExpression(cb, course, aggregate, sortKey);
+
+        List<Predicate> predicates = filters(cb, course, aggregate, query, type);
+        if (after != null) {
+            predicates.add(afterCursor(cb, course, sortValue, sortKey, descending, after));
+        }
+        List<Order> orders = descending
+                ? List.of(cb.desc(sortValue), cb.desc(course.get("id")))
+                : List.of(cb.asc(sortValue), cb.asc(course.get("id")));
+        cq.multiselect(course, aggregate, sortValue)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(orders);
+
+        List<Object[]> rows = entityManager.createQuery(cq)
+                .setMaxResults(pageSize + 1)
+                .getResultList();
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        List<CourseDto> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            items.add(CourseDto.fromEntity((Course) row[0], (RatingAggregate) row[1]));
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Object[] last = rows.get(rows.size() - 1);
+            nextCursor = new CatalogCursor(sortKey.name(), descending, ((Course) last[0]).getId(),
+                    String.valueOf(last[2])).encode();
+        }
+        return new CatalogPageDto<>(items, nextCursor, hasMore, totalCount(query, type));
+    }
+
+    /**
+     * 满足过滤条件的总数：同一组条件在缓存有效期内只统计一次，课程变化后随版本号失效。
+     * 按最低评分过滤的总数随每条评价变化，评价写入不递增版本号，因此不缓存
+     */
+    private long totalCount(CourseCatalogQuery query, Course.CourseType type) {
+        if (query.getMinRating() != null) {
+            return countMatching(query, type);
+        }
+        return cacheService.getOrLoadCatalogCount(filterKey(query, type), () -> countMatching(query, type));
+    }
+
+    private long countMatching(CourseCatalogQuery query, Course.CourseType type) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Course> course = cq.from(Course.class);
+        // 只有按评分过滤时才需要关联评分聚合
+        JpaEntityJoin<RatingAggregate> aggregate = query.getMinRating() != null ? joinAggregate(cb, course) : null;
+        cq.select(cb.count(course))
+                .where(filters(cb, course, aggregate, query, type).toArray(new Predicate[0]));
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+
+    private JpaEntityJoin<RatingAggregate> joinAggregate(CriteriaBuilder cb, Root<Course> course) {
+        JpaEntityJoin<RatingAggregate> aggregate = ((JpaRoot<Course>) course).join(RatingAggregate.class, SqmJoinType.INNER);
+        aggregate.on(cb.equal(aggregate.get("targetType"), RatingAggregate.TargetType.COURSE),
+                cb.equal(aggregate.get("targetId"), course.get("id")));
+        return aggregate;
+    }
+
+    private List<Predicate> filters(CriteriaBuilder cb, Root<Course> course, JpaEntityJoin<RatingAggregate> aggregate,
+                                    CourseCatalogQuery query, Course.CourseType type) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.getFacultyId() != null) {
+            predicates.add(cb.equal(course.get("faculty").get("id"), query.getFacultyId()));
+        }
+        if (query.getTeacherId() != null) {
+            predicates.add(cb.equal(course.get("teacher").get("id"), query.getTeacherId()));
+        }
+        if (type != null) {
+            predicates.add(cb.equal(course.get("type"), type));
+        }
+        if (query.getMinCredits() != null) {
+            predicates.add(cb.ge(course.get("credits"), query.getMinCredits()));
+        }
+        if (query.getMaxCredits() != null) {
+            predicates.add(cb.le(course.get("credits"), query.getMaxCredits()));
+        }
+        if (query.getMinRating() != null) {
+            predicates.add(cb.ge(averageRating(aggregate), query.getMinRating()));
+        }
+        return predicates;
+    }
+
+    private Expression<?> sortExpression(CriteriaBuilder cb, Root<Course> course,
+                                         JpaEntityJoin<RatingAggregate> aggregate, SortKey sortKey) {
+        return switch (sortKey) {
+            case RATING -> averageRating(aggregate);
+            case REVIEWS -> reviewCount(aggregate);
+            case CODE -> course.<String>get("code");
+        };
+    }
+
+    // 直接使用存储的列而不是表达式，排序和过滤才能走索引；没有评价的课程平均分为0
+    private Expression<Number> averageRating(JpaEntityJoin<RatingAggregate> aggregate) {
+        return aggregate.get("avgRating");
+    }
+
+    private Expression<Long> reviewCount(JpaEntityJoin<RatingAggregate> aggregate) {
+        return aggregate.get("reviewCount");
+    }
+
+    /**
+     * 排在游标之后：排序值更靠后，或排序值相同且ID更靠后（与排序同方向）。
+     * 另加不含OR的排序值边界（降序时 <= 游标值），作为索引扫描的起点
+     */
+    @SuppressWarnings("unchecked")
+    private Predicate afterCursor(CriteriaBuilder cb, Root<Course> course, Expression<?> sortValue,
+                                  SortKey sortKey, boolean descending, CatalogCursor cursor) {
+        Predicate sameValue;
+        Predicate beyondValue;
+        Predicate bound;
+        try {
+            switch (sortKey) {
+                case CODE -> {
+                    Expression<String> code = (Expression<String>) sortValue;
+                    sameValue = cb.equal(code, cursor.getValue());
+                    beyondValue = descending ? cb.lessThan(code, cursor.getValue())
+                            : cb.greaterThan(code, cursor.getValue());
+                    bound = descending ? cb.lessThanOrEqualTo(code, cursor.getValue())
+                            : cb.greaterThanOrEqualTo(code, cursor.getValue());
+                }
+                case REVIEWS -> {
+                    Expression<Long> count = (Expression<Long>) sortValue;
+                    long value = Long.parseLong(cursor.getValue());
+                    sameValue = cb.equal(count, value);
+                    beyondValue = descending ? cb.lt(count, value) : cb.gt(count, value);
+                    bound = descending ? cb.le(count, value) : cb.ge(count, value);
+                }
+                default -> {
+                    Expression<Number> rating = (Expression<Number>) sortValue;
+                    double value = Double.parseDouble(cursor.getValue());
+                    sameValue = cb.equal(rating, value);
+                    beyondValue = descending ? cb.lt(rating, value) : cb.gt(rating, value);
+                    bound = descending ? cb.le(rating, value) : cb.ge(rating, value);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        Predicate beyondId = descending ? cb.lt(course.get("id"), cursor.getId()) : cb.gt(course.get("id"), cursor.getId());
+        return cb.and(bound, cb.or(beyondValue, cb.and(sameValue, beyondId)));
+    }
+
+    private SortKey parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return SortKey.RATING;
+        }
+        try {
+            return SortKey.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的排序方式: " + sort);
+        }
+    }
+
+    private boolean parseDirection(String direction, SortKey sortKey) {
+        if (direction == null || direction.isBlank()) {
+            return sortKey.defaultDescending;
+        }
+        return switch (direction.trim().toLowerCase(Locale.ROOT)) {
+            case "desc" -> true;
+            case "asc" -> false;
+            default -> throw new IllegalArgumentException("排序方向只能是asc或desc");
+        };
+    }
+
+    private Course.CourseType parseType(String type) {
+        if (type == null || type.isBlank()) {
+            return null;
+        }
+        try {
+            return Course.CourseType.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的课程类型: " + type);
+        }
+    }
+
+    private void validateRanges(CourseCatalogQuery query) {
+        if (query.getMinCredits() != null && query.getMaxCredits() != null
+                && query.getMinCredits() > query.getMaxCredits()) {
+            throw new IllegalArgumentException("最低学分不能大于最高学分");
+        }
+        if (query.getMinRating() != null && (query.getMinRating() < 0 || query.getMinRating() > 5)) {
+            throw new IllegalArgumentException("最低评分必须在0到5之间");
+        }
+    }
+
+    private int normalizePageSize(int size) {
+        if (size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private String filterKey(CourseCatalogQuery query, Course.CourseType type) {
+        return "f=" + query.getFacultyId()
+                + "|t=" + query.getTeacherId()
+                + "|type=" + type
+                + "|c=" + query.getMinCredits() + "-" + query.getMaxCredits()
+                + "|r=" + query.getMinRating();
+    }
+}
@@ -0,0 +1,301 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.model.EmailOutbox;
+import com.must.courseevaluation.repository.EmailOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 发件箱邮件投递
+ * enqueue在调用方事务中写入发件箱；后台任务在短事务中领取一批到期邮件（FOR UPDATE SKIP LOCKED，标记为SENDING并设置租约），
+ * 提交后在事务外发送，每批只建立一次SMTP连接，再用另一个短事务写回结果。SMTP发送期间不持有任何行锁。
+ * 失败的邮件按指数退避重试，超过最大次数后标记为FAILED；投递节点中途退出时，租约到期后邮件会被重新领取。
+ */
+@Service
+public class EmailOutboxService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+    
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+    
+    @Autowired
+    private JavaMailSender mailSender;
+    
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+    
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+    
+    @Value("${email.outbox.retry-base-delay:30s}")
+    private Duration retryBaseDelay;
+    
+    @Value("${email.outbox.retry-max-delay:1h}")
+    private Duration retryMaxDelay;
+    
+    // 领取后的租约，需远大于一批邮件的SMTP发送耗时，否则租约过期后可能被其他节点重复发送
+    @Value("${email.outbox.send-lease:5m}")
+    private Duration sendLease;
+    
+    // 积压上限，超过时拒绝新邮件，避免发件箱无限增长
+    @Value("${email.outbox.max-pending:5000}")
+    private long maxPending;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    // 发件人地址只解析一次
+    private InternetAddress fromAddress;
+    
+    // 投递统计
+    private volatile long queueDepth;
+    private volatile long lastBatchMillis;
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong totalDeliveryMillis = new AtomicLong();
+    
+    public EmailOutboxService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @PostConstruct
+    public void init() throws AddressException {
+        this.fromAddress = new InternetAddress(fromEmail);
+    }
+    
+    /**
+     * 写入发件箱，有事务时加入调用方事务，与业务数据一同提交或回滚
+     * @param dedupeKey 去重键，可为null；同键且尚未发送的邮件只更新内容
+     * @return 是否已接收；积压超过上限时返回false
+     */
+    @Transactional
+    public boolean enqueue(String recipient, String subject, String body, String dedupeKey) {
+        if (queueDepth >= maxPending) {
+            // 积压超限时只允许合并到已有的待发送邮件
+            if (dedupeKey != null && emailOutboxRepository.updatePendingByDedupeKey(dedupeKey, subject, body) > 0) {
+                logger.info("合并重复的待发送邮件: {}", recipient);
+                return true;
+            }
+            logger.warn("发件箱积压 {} 封，拒绝新邮件: {}", queueDepth, recipient);
+            return false;
+        }
+        
+        if (dedupeKey != null) {
+            // 单条语句插入或合并，并发写入同一去重键时也只会留下一封待发送邮件
+            emailOutboxRepository.upsertPending(recipient, subject, body, dedupeKey, LocalDateTime.now());
+            return true;
+        }
+        
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(recipient);
+        email.setSubject(subject);
+        email.setBody(body);
+        emailOutboxRepository.save(email);
+        return true;
+    }
+    
+    /**
+     * 投递到期的邮件，一直处理到没有整批的到期邮件为止
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:2000}")
+    public void dispatchPending() {
+        try {
+            int processed;
+            do {
+                processed = dispatchBatch();
+            } while (processed >= batchSize);
+            queueDepth = emailOutboxRepository.countByStatus(EmailOutbox.Status.PENDING);
+        } catch (Exception e) {
+            logger.error("邮件投递任务执行失败: {}", e.getMessage());
+        }
+    }
+    
+    private int dispatchBatch() {
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        
+        Map<MimeMessage, EmailOutbox> messages = new IdentityHashMap<>();
+        List<EmailOutbox> failed = new ArrayList<>();
+        for (EmailOutbox email : batch) {
+            try {
+                messages.put(buildMessage(email), email);
+            } catch (MessagingException e) {
+                scheduleRetry(email, e);
+                failed.add(email);
+            }
+        }
+        
+        // 不在事务中：一次send调用只打开一个SMTP连接，逐封发送，返回每封失败邮件的异常
+        Map<Object, Exception> failures = Map.of();
+        long start = System.currentTimeMillis();
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                failures = e.getFailedMessages();
+            } catch (MailException e) {
+                failures = new IdentityHashMap<>();
+                for (MimeMessage message : messages.keySet()) {
+                    failures.put(message, e);
+                }
+            }
+        }
+        lastBatchMillis = System.currentTimeMillis() - start;
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sentIds = new ArrayList<>();
+        for (Map.Entry<MimeMessage, EmailOutbox> entry : messages.entrySet()) {
+            EmailOutbox email = entry.getValue();
+            Exception failure = failures.get(entry.getKey());
+            if (failure != null) {
+                scheduleRetry(email, failure);
+                failed.add(email);
+            } else {
+                sentIds.add(email.getId());
+                sentCount.incrementAndGet();
+                totalDeliveryMillis.addAndGet(Duration.between(email.getCreatedAt(), now).toMillis());
+            }
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                emailOutboxRepository.markSent(sentIds, now);
+            }
+            for (EmailOutbox email : failed) {
+                // 发送期间已有同键的新邮件入队（如重新获取验证码），旧内容不再重试
+                if (email.getStatus() == EmailOutbox.Status.PENDING && email.getDedupeKey() != null
+                        && emailOutboxRepository.existsByDedupeKeyAndStatus(email.getDedupeKey(), EmailOutbox.Status.PENDING)) {
+                    email.setStatus(EmailOutbox.Status.FAILED);
+                    email.setLastError("已被同键的新邮件取代");
+                }
+            }
+            emailOutboxRepository.saveAll(failed);
+        });
+        
+        logger.info("邮件投递批次: 成功 {}, 失败 {}, SMTP耗时 {} ms", sentIds.size(), failed.size(), lastBatchMillis);
+        return batch.size();
+    }
+    
+    /**
+     * 锁定到期邮件并标记为发送中，租约到期前其他节点不会再领取；事务提交即释放行锁
+     */
+    private List<EmailOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> batch = emailOutboxRepository.claimDueBatch(now, batchSize);
+        LocalDateTime leaseUntil = now.plus(sendLease);
+        for (EmailOutbox email : batch) {
+            email.setStatus(EmailOutbox.Status.SENDING);
+            email.setNextAttemptAt(leaseUntil);
+        }
+        return batch;
+    }
+    
+    private MimeMessage buildMessage(EmailOutbox email) throws MessagingException {
+        // 正文是单一HTML部分，直接设置MimeMessage，不需要构造multipart的MimeMessageHelper
+        MimeMessage message = mailSender.createMimeMessage();
+        message.setFrom(fromAddress);
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(email.getRecipient()));
+        message.setSubject(email.getSubject(), StandardCharsets.UTF_8.name());
+        message.setText(email.getBody(), StandardCharsets.UTF_8.name(), "html");
+        return message;
+    }
+    
+    /**
+     * 指数退避：第n次失败后等待 base * 2^(n-1)，不超过上限
+     */
+    private void scheduleRetry(EmailOutbox email, Exception failure) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(truncate(failure.getMessage()));
+        
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            failedCount.incrementAndGet();
+            logger.error("邮件发送失败且已达最大重试次数, ID: {}, 收件人: {}, 原因: {}",
+                    email.getId(), email.getRecipient(), failure.getMessage());
+            return;
+        }
+        
+        long delayMillis = retryBaseDelay.toMillis() << Math.min(attempts - 1, 20);
+        delayMillis = Math.min(delayMillis, retryMaxDelay.toMillis());
+        email.setStatus(EmailOutbox.Status.PENDING);
+        email.setNextAttemptAt(LocalDateTime.now().plusNanos(delayMillis * 1_000_000));
+        retryCount.incrementAndGet();
+        logger.warn("邮件发送失败, ID: {}, 第 {} 次, {} ms后重试, 原因: {}",
+                email.getId(), attempts, delayMillis, failure.getMessage());
+    }
+    
+    private String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+    
+    /**
+     * 待发送邮件数（上次投递后统计）
+     */
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+    
+    /**
+     * 上一批次的SMTP发送耗时（毫秒）
+     */
+    public long getLastBatchMillis() {
+        return lastBatchMillis;
+    }
+    
+    /**
+     * 从写入发件箱到发送成功的平均耗时（毫秒）
+     */
+    public long getAverageDeliveryMillis() {
+        long sent = sentCount.get();
+        return sent == 0 ? 0 : totalDeliveryMillis.get() / sent;
+    }
+    
+    public long getSentCount() {
+        return sentCount.get();
+    }
+    
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+    
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
@@ -0,0 +1,148 @@
+package com.must.courseevaluation.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 邮件模板服务
+ * 模板位于 classpath:templates/email/，占位符写作 {{name}}。启动时每个模板只解析一次，
+ * 拆成静态片段和变量名；渲染时按预估长度一次分配缓冲区，依次拼接静态片段和转义后的变量值。
+ */
+@Service
+public class EmailTemplateService {
+
+    private static final String TEMPLATE_LOCATION = "templates/email/";
+
+    // 每个模板都可使用的公共变量
+    public static final String VAR_YEAR = "year";
+
+    /**
+     * 通知类型，对应模板文件和邮件主题
+     */
+    public enum Template {
+        VERIFICATION("verification.html", "课程评价系统 - 邮箱验证码"),
+        REVIEW_REPLY("review-reply.html", "课程评价系统 - 您的评价收到了回复"),
+        MODERATION_NOTICE("moderation-notice.html", "课程评价系统 - 评价审核通知");
+
+        private final String fileName;
+        private final String subject;
+
+        Template(String fileName, String subject) {
+            this.fileName = fileName;
+            this.subject = subject;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+    }
+
+    private final Map<Template, CompiledTemplate> compiled = new EnumMap<>(Template.class);
+
+    @PostConstruct
+    public void init() {
+        for (Template template : Template.values()) {
+            compiled.put(template, CompiledTemplate.compile(load(template.fileName)));
+        }
+    }
+
+    /**
+     * 渲染模板，变量值会做HTML转义
+     * @throws IllegalArgumentException 缺少模板需要的变量
+     */
+    public String render(Template template, Map<String, String> variables) {
+        return compiled.get(template).render(variables);
+    }
+
+    private String load(String fileName) {
+        ClassPathResource resource = new ClassPathResource(TEMPLATE_LOCATION + fileName);
+        try (InputStream in = resource.getInputStream()) {
+            // 模板文件中的换行仅为便于编辑，渲染结果不需要
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r", "").replace("\n", "");
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法加载邮件模板: " + fileName, e);
+        }
+    }
+
+    /**
+     * 预编译的模板：segments[i] 后接 variables[i] 的值，最后接 segments[n]
+     */
+    private static final class CompiledTemplate {
+        private final String[] segments;
+        private final String[] variables;
+        private final int staticLength;
+
+        private CompiledTemplate(String[] segments, String[] variables) {
+            this.segments = segments;
+            this.variables = variables;
+            int length = 0;
+            for (String segment : segments) {
+                length += segment.length();
+            }
+            this.staticLength = length;
+        }
+
+        static CompiledTemplate compile(String source) {
+            List<String> segments = new ArrayList<>();
+            List<String> variables = new ArrayList<>();
+            int position = 0;
+            while (true) {
+                int start = source.indexOf("{{", position);
+                if (start < 0) {
+                    break;
+                }
+                int end = source.indexOf("}}", start + 2);
+                if (end < 0) {
+                    throw new IllegalStateException("邮件模板占位符未闭合，位置: " + start);
+                }
+                segments.add(source.substring(position, start));
+                variables.add(source.substring(start + 2, end).trim());
+                position = end + 2;
+            }
+            segments.add(source.substring(position));
+            return new CompiledTemplate(segments.toArray(new String[0]), variables.toArray(new String[0]));
+        }
+
+        String render(Map<String, String> values) {
+            StringBuilder sb = new StringBuilder(staticLength + variables.length * 32);
+            for (int i = 0; i < variables.length; i++) {
+                sb.append(segments[i]);
+                String value = values.get(variables[i]);
+                if (value == null && VAR_YEAR.equals(variables[i])) {
+                    value = String.valueOf(Year.now().getValue());
+                }
+                if (value == null) {
+                    throw new IllegalArgumentException("缺少邮件模板变量: " + variables[i]);
+                }
+                appendEscaped(sb, value);
+            }
+            sb.append(segments[variables.length]);
+            return sb.toString();
+        }
+
+        private static void appendEscaped(StringBuilder sb, String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '<' -> sb.append("&lt;");
+                    case '>' -> sb.append("&gt;");
+                    case '&' -> sb.append("&amp;");
+                    case '"' -> sb.append("&quot;");
+                    case '\'' -> sb.append("&#39;");
+                    default -> sb.append(c);
+                }
+            }
+        }
+    }
+}
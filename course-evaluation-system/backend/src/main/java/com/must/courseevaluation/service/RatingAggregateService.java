@@ -0,0 +1,258 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.dto.CourseDto;
+import com.must.courseevaluation.model.RatingAggregate;
+import com.must.courseevaluation.model.RatingAggregate.TargetType;
+import com.must.courseevaluation.repository.RatingAggregateRepository;
+import com.must.courseevaluation.repository.ReviewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 评分聚合服务
+ * 评价的增删改在同一事务内增量更新课程和教师的聚合行，评分统计查询为O(1)
+ * 聚合变化后在事务提交时只清除对应的评分缓存；课程列表缓存不含评分，读取时由withCourseRatings按聚合行填入，
+ * 因此评价写入不会使列表缓存失效
+ */
+@Service
+public class RatingAggregateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingAggregateService.class);
+
+    // 单次IN查询的ID数上限，远低于PostgreSQL绑定参数个数的限制
+    private static final int RATING_LOOKUP_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private RatingAggregateRepository ratingAggregateRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private CacheService cacheService;
+
+    /**
+     * 新增评价后调用
+     */
+    @Transactional
+    public void reviewAdded(Long courseId, Long teacherId, int rating) {
+        apply(TargetType.COURSE, courseId, rating, 1);
+        if (teacherId != null) {
+            apply(TargetType.TEACHER, teacherId, rating, 1);
+        }
+        evictCaches(courseId, teacherId);
+    }
+
+    /**
+     * 删除评价后调用
+     */
+    @Transactional
+    public void reviewRemoved(Long courseId, Long teacherId, int rating) {
+        apply(TargetType.COURSE, courseId, rating, -1);
+        if (teacherId != null) {
+            apply(TargetType.TEACHER, teacherId, rating, -1);
+        }
+        evictCaches(courseId, teacherId);
+    }
+
+    /**
+     * 批量删除评价后调用，参数为 目标ID -> (评分 -> 被删除条数)。
+     * 每个目标只加锁更新一次，按传入Map的迭代顺序加锁（调用方用TreeMap保证ID顺序），评分缓存在最后统一清除一次
+     */
+    @Transactional
+    public void reviewsRemoved(Map<Long, Map<Integer, Integer>> courseRatingCounts,
+                               Map<Long, Map<Integer, Integer>> teacherRatingCounts) {
+        courseRatingCounts.forEach((courseId, counts) -> removeAll(TargetType.COURSE, courseId, counts));
+        teacherRatingCounts.forEach((teacherId, counts) -> removeAll(TargetType.TEACHER, teacherId, counts));
+        cacheService.evictRatingCaches(courseRatingCounts.keySet(), teacherRatingCounts.keySet());
+    }
+
+    /**
+     * 修改评分后调用
+     */
+    @Transactional
+    public void reviewRatingChanged(Long courseId, Long teacherId, int oldRating, int newRating) {
+        if (oldRating == newRating) {
+            return;
+        }
+        apply(TargetType.COURSE, courseId, oldRating, -1);
+        apply(TargetType.COURSE, courseId, newRating, 1);
+        if (teacherId != null) {
+            apply(TargetType.TEACHER, teacherId, oldRating, -1);
+            apply(TargetType.TEACHER, teacherId, newRating, 1);
+        }
+        evictCaches(courseId, teacherId);
+    }
+
+    /**
+     * 获取评分统计，不存在聚合数据时返回null
+     */
+    public Map<String, Object> getRatings(TargetType targetType, Long targetId) {
+        return ratingAggregateRepository.findByTargetTypeAndTargetId(targetType, targetId)
+                .map(this::toRatingsMap)
+                .orElse(null);
+    }
+
+    /**
+     * 以当前聚合行覆盖课程列表中的平均分和评价数，返回新的列表，不修改传入的（可能来自缓存的）对象
+     */
+    public List<CourseDto> withCourseRatings(List<CourseDto> courses) {
+        List<Long> courseIds = courses.stream().map(CourseDto::getId).distinct().collect(Collectors.toList());
+        Map<Long, RatingAggregate> aggregates = new HashMap<>();
+        for (int from = 0; from < courseIds.size(); from += RATING_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = courseIds.subList(from, Math.min(from + RATING_LOOKUP_CHUNK_SIZE, courseIds.size()));
+            aggregates.putAll(ratingAggregateRepository.findByTargetTypeAndTargetIdIn(TargetType.COURSE, chunk).stream()
+                    .collect(Collectors.toMap(RatingAggregate::getTargetId, Function.identity())));
+        }
+        return courses.stream()
+                .map(course -> course.withRatings(aggregates.get(course.getId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 为新建的课程或教师创建空的聚合行
+     */
+    @Transactional
+    public void initAggregate(TargetType targetType, Long targetId) {
+        ratingAggregateRepository.insertIfAbsent(targetType.name(), targetId);
+    }
+
+    @Transactional
+    public void removeAggregate(TargetType targetType, Long targetId) {
+        ratingAggregateRepository.deleteByTarget(targetType, targetId);
+    }
+
+    /**
+     * 从评价表重算课程的聚合数据（仅用于课程删除、用户删除等低频的结构性变更）
+     */
+    @Transactional
+    public void recalculateCourse(Long courseId) {
+        recalculate(TargetType.COURSE, courseId, reviewRepository.countRatingsByCourseId(courseId));
+        evictCaches(courseId, null);
+    }
+
+    /**
+     * 从评价表重算教师的聚合数据（仅用于课程换教师等低频的结构性变更）
+     */
+    @Transactional
+    public void recalculateTeacher(Long teacherId) {
+        if (teacherId == null) {
+            return;
+        }
+        recalculate(TargetType.TEACHER, teacherId, reviewRepository.countRatingsByTeacherId(teacherId));
+        evictCaches(null, teacherId);
+    }
+
+    /**
+     * 全量重建所有聚合数据，用于聚合与评价不一致时的人工修复（部署时的回填由迁移V7完成）；
+     * 每门课程和每位教师都会有一行
+     */
+    @Transactional
+    public void rebuildAll() {
+        ratingAggregateRepository.deleteAllInBatch();
+        ratingAggregateRepository.flush();
+
+        Map<Long, RatingAggregate> courseAggregates = new HashMap<>();
+        for (Object[] row : reviewRepository.countRatingsGroupedByCourse()) {
+            Long courseId = (Long) row[0];
+            courseAggregates.computeIfAbsent(courseId, id -> new RatingAggregate(TargetType.COURSE, id))
+                    .apply(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+        }
+
+        Map<Long, RatingAggregate> teacherAggregates = new HashMap<>();
+        for (Object[] row : reviewRepository.countRatingsGroupedByTeacher()) {
+            Long teacherId = (Long) row[0];
+            teacherAggregates.computeIfAbsent(teacherId, id -> new RatingAggregate(TargetType.TEACHER, id))
+                    .apply(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+        }
+
+        ratingAggregateRepository.saveAll(courseAggregates.values());
+        ratingAggregateRepository.saveAll(teacherAggregates.values());
+        ratingAggregateRepository.flush();
+        // 没有评价的课程和教师也要有聚合行，目录查询依赖这一点
+        ratingAggregateRepository.insertMissingForCourses();
+        ratingAggregateRepository.insertMissingForTeachers();
+        logger.info("评分聚合重建完成: {} 门课程, {} 位教师", courseAggregates.size(), teacherAggregates.size());
+    }
+
+    private void apply(TargetType targetType, Long targetId, int rating, int delta) {
+        RatingAggregate aggregate = lockAggregate(targetType, targetId);
+        aggregate.apply(rating, delta);
+        ratingAggregateRepository.save(aggregate);
+    }
+
+    /**
+     * 批量扣减一个目标的多条评分，只加锁读写一次
+     */
+    private void removeAll(TargetType targetType, Long targetId, Map<Integer, Integer> ratingCounts) {
+        if (ratingCounts.isEmpty()) {
+            return;
+        }
+        RatingAggregate aggregate = lockAggregate(targetType, targetId);
+        ratingCounts.forEach((rating, count) -> aggregate.apply(rating, -count));
+        ratingAggregateRepository.save(aggregate);
+    }
+
+    /**
+     * 先以 ON CONFLICT DO NOTHING 确保聚合行存在，再加行锁读取。
+     * 先查后插会让同一目标的两个并发首条评价都查不到行，其中一个插入时违反唯一约束，连同评价一起回滚
+     */
+    private RatingAggregate lockAggregate(TargetType targetType, Long targetId) {
+        ratingAggregateRepository.insertIfAbsent(targetType.name(), targetId);
+        return ratingAggregateRepository.findForUpdate(targetType, targetId)
+                .orElseThrow(() -> new IllegalStateException("评分聚合行不存在: " + targetType + " " + targetId));
+    }
+
+    /**
+     * 提交后清除评分缓存
+     */
+    private void evictCaches(Long courseId, Long teacherId) {
+        cacheService.evictRatingCaches(
+                courseId != null ? List.of(courseId) : Collections.emptyList(),
+                teacherId != null ? List.of(teacherId) : Collections.emptyList());
+    }
+
+    private void recalculate(TargetType targetType, Long targetId, List<Object[]> ratingCounts) {
+        RatingAggregate aggregate = lockAggregate(targetType, targetId);
+        aggregate.reset();
+        for (Object[] row : ratingCounts) {
+            // apply的delta即该评分出现的次数
+            aggregate.apply(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+        }
+        ratingAggregateRepository.save(aggregate);
+    }
+
+    private Map<String, Object> toRatingsMap(RatingAggregate aggregate) {
+        Map<String, Object> result = new HashMap<>();
+
+        if (aggregate.getReviewCount() <= 0) {
+            result.put("averageRating", 0.0);
+            result.put("totalReviews", 0);
+            result.put("ratingDistribution", new HashMap<Integer, Integer>());
+            return result;
+        }
+
+        double averageRating = (double) aggregate.getRatingSum() / aggregate.getReviewCount();
+
+        Map<Integer, Integer> distribution = new HashMap<>();
+        for (int i = 1; i <= 5; i++) {
+            distribution.put(i, (int) aggregate.getStarCount(i));
+        }
+
+        result.put("averageRating", Math.round(averageRating * 10) / 10.0);
+        result.put("totalReviews", (int) aggregate.getReviewCount());
+        result.put("ratingDistribution", distribution);
+
+        return result;
+    }
+}
@@ -1,5 +1,7 @@
 package com.must.courseevaluation.service;
 
+import com.must.courseevaluation.dto.BatchDeleteResultDto;
+import com.must.courseevaluation.dto.CursorPageDto;
 import com.must.courseevaluation.dto.ReviewDto;
 import com.must.courseevaluation.model.Review;
 
@@ -11,11 +13,14 @@ public interface ReviewService {
     ReviewDto getReviewById(Long id);
     List<ReviewDto> getReviewsByCourse(Long courseId);
     List<ReviewDto> getReviewsByTeacher(Long teacherId);
+    CursorPageDto<ReviewDto> getReviewFeedByCourse(Long courseId, String cursor, int size);
+    CursorPageDto<ReviewDto> getReviewFeedByTeacher(Long teacherId, String cursor, int size);
     List<ReviewDto> getReviewsByUser(Long userId);
     ReviewDto createReview(ReviewDto reviewDto);
     ReviewDto updateReview(ReviewDto reviewDto);
     ReviewDto updateReview(Long id, ReviewDto reviewDto);
     void deleteReview(Long id);
+    BatchDeleteResultDto deleteReviews(List<Long> ids);
     Map<String, Object> getCourseRatings(Long courseId);
     Map<String, Object> getTeacherRatings(Long teacherId);
     
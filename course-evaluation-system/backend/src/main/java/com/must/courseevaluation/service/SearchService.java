@@ -0,0 +1,198 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.dto.CourseDto;
+import com.must.courseevaluation.dto.SearchHitDto;
+import com.must.courseevaluation.dto.SearchPageDto;
+import com.must.courseevaluation.dto.TeacherDto;
+import com.must.courseevaluation.model.Teacher;
+import com.must.courseevaluation.repository.CourseRepository;
+import com.must.courseevaluation.repository.TeacherRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 课程和教师搜索
+ * 课程在 search_text（代码、名称、简介、教师、院系）上同时走PostgreSQL全文检索和pg_trgm三元组匹配，
+ * 在有限的候选内按相关度排序后分页，同一条查询带出本页课程的展示字段；每页只取 size+1 条判断是否有下一页，不做COUNT。
+ */
+@Service
+public class SearchService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 50;
+    // 超过此页数的深分页对搜索没有意义，且OFFSET越大越慢
+    private static final int MAX_PAGE = 50;
+    private static final int MAX_KEYWORD_LENGTH = 50;
+    // 课程检索只对这么多候选计算排名；翻页超出时按需扩大，前几页的候选集相同，翻页结果一致
+    private static final int COURSE_CANDIDATES = 100;
+    // 高亮片段中命中词前后保留的字符数
+    private static final int SNIPPET_CONTEXT = 30;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Transactional(readOnly = true)
+    public SearchPageDto<SearchHitDto<CourseDto>> searchCourses(String keyword, int page, int size) {
+        String normalized = normalizeKeyword(keyword);
+        int pageSize = normalizePageSize(size);
+        validatePage(page);
+
+        int offset = page * pageSize;
+        List<Object[]> rows = courseRepository.searchRanked(normalized, containsPattern(normalized),
+                Math.max(COURSE_CANDIDATES, offset + pageSize + 1), pageSize + 1, offset);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        // 检索查询已带出本页课程的展示字段和评分，不再按ID取实体
+        String[] terms = terms(normalized);
+        List<SearchHitDto<CourseDto>> hits = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            CourseDto course = CourseDto.fromSearchRow(row);
+            String highlight = highlight(terms, course.getName(), course.getCode(), course.getDescription(),
+                    course.getTeacherName(), course.getFacultyName());
+            hits.add(new SearchHitDto<>(course, ((Number) row[13]).doubleValue(), highlight));
+        }
+        return new SearchPageDto<>(hits, page, pageSize, hasMore);
+    }
+
+    @Transactional(readOnly = true)
+    public SearchPageDto<SearchHitDto<TeacherDto>> searchTeachers(String keyword, int page, int size) {
+        String normalized = normalizeKeyword(keyword);
+        int pageSize = normalizePageSize(size);
+        validatePage(page);
+
+        List<Object[]> rows = teacherRepository.searchRanked(normalized, containsPattern(normalized),
+                escapeLike(normalized) + "%", pageSize + 1, page * pageSize);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        Map<Long, Teacher> teachers = teacherRepository.findByIdIn(ids(rows)).stream()
+                .collect(Collectors.toMap(Teacher::getId, Function.identity()));
+        String[] terms = terms(normalized);
+        List<SearchHitDto<TeacherDto>> hits = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Teacher teacher = teachers.get(((Number) row[0]).longValue());
+            if (teacher == null) {
+                continue;
+            }
+            hits.add(new SearchHitDto<>(TeacherDto.fromEntity(teacher), ((Number) row[1]).doubleValue(),
+                    highlight(terms, teacher.getName())));
+        }
+        return new SearchPageDto<>(hits, page, pageSize, hasMore);
+    }
+
+    private String normalizeKeyword(String keyword) {
+        String normalized = keyword == null ? "" : keyword.trim().replaceAll("\\s+", " ");
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("搜索关键词不能为空");
+        }
+        if (normalized.length() > MAX_KEYWORD_LENGTH) {
+            throw new IllegalArgumentException("搜索关键词不能超过" + MAX_KEYWORD_LENGTH + "个字符");
+        }
+        return normalized;
+    }
+
+    private int normalizePageSize(int size) {
+        if (size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private void validatePage(int page) {
+        if (page < 0 || page >= MAX_PAGE) {
+            throw new IllegalArgumentException("页码必须在0到" + (MAX_PAGE - 1) + "之间");
+        }
+    }
+
+    private List<Long> ids(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> ((Number) row[0]).longValue())
+                .collect(Collectors.toList());
+    }
+
+    private String containsPattern(String keyword) {
+        return "%" + escapeLike(keyword) + "%";
+    }
+
+    // PostgreSQL的LIKE默认以反斜杠转义
+    private String escapeLike(String keyword) {
+        return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private String[] terms(String keyword) {
+        String[] words = keyword.split(" ");
+        // 整个关键词优先，其次是各个单词，长词优先以免短词截断长词的高亮
+        String[] terms = new String[words.length + 1];
+        terms[0] = keyword;
+        System.arraycopy(words, 0, terms, 1, words.length);
+        Arrays.sort(terms, 1, terms.length, (a, b) -> b.length() - a.length());
+        return terms;
+    }
+
+    /**
+     * 在第一个包含关键词的字段中截取命中位置附近的片段，转义后用 <mark> 标出所有命中词
+     */
+    private String highlight(String[] terms, String... fields) {
+        for (String field : fields) {
+            if (field == null || field.isEmpty()) {
+                continue;
+            }
+            int[] first = findTerm(field, terms, 0);
+            if (first == null) {
+                continue;
+            }
+            int start = Math.max(0, first[0] - SNIPPET_CONTEXT);
+            int end = Math.min(field.length(), first[0] + first[1] + SNIPPET_CONTEXT);
+
+            StringBuilder sb = new StringBuilder();
+            if (start > 0) {
+                sb.append("…");
+            }
+            int pos = start;
+            int[] match = first;
+            while (match != null && match[0] + match[1] <= end) {
+                sb.append(HtmlUtils.htmlEscape(field.substring(pos, match[0])))
+                        .append("<mark>")
+                        .append(HtmlUtils.htmlEscape(field.substring(match[0], match[0] + match[1])))
+                        .append("</mark>");
+                pos = match[0] + match[1];
+                match = findTerm(field, terms, pos);
+            }
+            sb.append(HtmlUtils.htmlEscape(field.substring(pos, end)));
+            if (end < field.length()) {
+                sb.append("…");
+            }
+            return sb.toString();
+        }
+        return null;
+    }
+
+    // 返回 from 之后最早出现的命中词 [位置, 长度]，同一位置取更长的词；忽略大小写
+    private int[] findTerm(String text, String[] terms, int from) {
+        for (int i = from; i < text.length(); i++) {
+            for (String term : terms) {
+                if (!term.isEmpty() && text.regionMatches(true, i, term, 0, term.length())) {
+                    return new int[]{i, term.length()};
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,181 @@
+package com.must.courseevaluation.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基于Aho–Corasick自动机的敏感词匹配器
+ * 构建后不可变，可在多线程间共享；一次线性扫描即可找出并屏蔽全部敏感词，耗时与词典大小无关。
+ * 匹配前逐字符归一化：拉丁字母转小写，全角ASCII字符转半角，归一化不改变字符位置。
+ */
+public final class SensitiveWordMatcher {
+
+    private static final SensitiveWordMatcher EMPTY = new SensitiveWordMatcher(List.of());
+
+    // 每个状态的转移边：keys按字符排序，targets为对应的下一状态
+    private final char[][] keys;
+    private final int[][] targets;
+    // 失败指针
+    private final int[] fail;
+    // 在该状态结束的最长敏感词长度（含失败链上的输出），0表示不是终止状态
+    private final int[] matchLength;
+    private final int wordCount;
+
+    private SensitiveWordMatcher(Collection<String> words) {
+        List<Map<Character, Integer>> edges = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        edges.add(new TreeMap<>());
+        lengths.add(0);
+
+        int count = 0;
+        for (String word : words) {
+            if (word == null || word.isBlank()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < word.length(); i++) {
+                char c = normalize(word.charAt(i));
+                Integer next = edges.get(state).get(c);
+                if (next == null) {
+                    next = edges.size();
+                    edges.add(new TreeMap<>());
+                    lengths.add(0);
+                    edges.get(state).put(c, next);
+                }
+                state = next;
+            }
+            lengths.set(state, Math.max(lengths.get(state), word.length()));
+            count++;
+        }
+
+        int size = edges.size();
+        this.keys = new char[size][];
+        this.targets = new int[size][];
+        this.fail = new int[size];
+        this.matchLength = new int[size];
+        this.wordCount = count;
+
+        for (int s = 0; s < size; s++) {
+            Map<Character, Integer> children = edges.get(s);
+            keys[s] = new char[children.size()];
+            targets[s] = new int[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> entry : children.entrySet()) {
+                keys[s][i] = entry.getKey();
+                targets[s][i] = entry.getValue();
+                i++;
+            }
+            matchLength[s] = lengths.get(s);
+        }
+
+        // 按BFS顺序计算失败指针，并沿失败链合并输出长度
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int i = 0; i < keys[s].length; i++) {
+                char c = keys[s][i];
+                int child = targets[s][i];
+                int f = fail[s];
+                while (f != 0 && next(f, c) < 0) {
+                    f = fail[f];
+                }
+                int target = next(f, c);
+                fail[child] = target >= 0 ? target : 0;
+                matchLength[child] = Math.max(matchLength[child], matchLength[fail[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    public static SensitiveWordMatcher compile(Collection<String> words) {
+        return new SensitiveWordMatcher(words);
+    }
+
+    public static SensitiveWordMatcher empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * 文本中是否存在任一敏感词
+     */
+    public boolean containsAny(String text) {
+        if (text == null || text.isEmpty() || wordCount == 0) {
+            return false;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, normalize(text.charAt(i)));
+            if (matchLength[state] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将文本中所有敏感词的每个字符替换为mask，未命中时返回原字符串
+     */
+    public String mask(String text, char mask) {
+        if (text == null || text.isEmpty() || wordCount == 0) {
+            return text;
+        }
+        char[] result = null;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, normalize(text.charAt(i)));
+            int length = matchLength[state];
+            if (length > 0) {
+                if (result == null) {
+                    result = text.toCharArray();
+                }
+                // 只需屏蔽在此结束的最长敏感词，较短的命中都被它覆盖
+                Arrays.fill(result, i - length + 1, i + 1, mask);
+            }
+        }
+        return result == null ? text : new String(result);
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int target = next(state, c);
+            if (target >= 0) {
+                return target;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    private int next(int state, char c) {
+        int index = Arrays.binarySearch(keys[state], c);
+        return index >= 0 ? targets[state][index] : -1;
+    }
+
+    /**
+     * 字符归一化：全角ASCII转半角、全角空格转半角空格、字母转小写
+     */
+    static char normalize(char c) {
+        if (c >= '\uFF01' && c <= '\uFF5E') {
+            c = (char) (c - 0xFEE0);
+        } else if (c == '\u3000') {
+            c = ' ';
+        }
+        return Character.toLowerCase(c);
+    }
+}
@@ -0,0 +1,23 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.dto.SensitiveWordDto;
+
+import java.util.List;
+
+/**
+ * 敏感词词表服务接口
+ */
+public interface SensitiveWordService {
+    
+    List<SensitiveWordDto> findAll();
+    
+    SensitiveWordDto create(SensitiveWordDto sensitiveWordDto);
+    
+    void delete(Long id);
+    
+    /**
+     * 检查词表版本，有变化时重新编译匹配器
+     * @return 是否重新加载
+     */
+    boolean reloadIfChanged();
+}
@@ -0,0 +1,19 @@
+package com.must.courseevaluation.service;
+
+/**
+ * 验证码存储
+ * 由 verification-code.store 配置选择实现：redis（多节点共享，默认）或 memory（单节点）。
+ */
+public interface VerificationCodeStore {
+
+    /**
+     * 保存邮箱的验证码，覆盖旧验证码并重置失败次数
+     */
+    void save(String email, String code);
+
+    /**
+     * 校验验证码：匹配时删除验证码（只能使用一次）；不匹配时累计失败次数，达到上限后验证码作废
+     * @return 是否匹配
+     */
+    boolean verify(String email, String code);
+}
@@ -0,0 +1,64 @@
+package com.must.courseevaluation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * 验证码邮件的按邮箱冷却
+ * 同一邮箱在冷却期内只能发送一次，冷却标记保存在Redis中，多节点共享。
+ * 按IP的频率限制由限流拦截器的 verification-email 分组负责。
+ */
+@Service
+public class VerificationEmailThrottle {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificationEmailThrottle.class);
+
+    private static final String COOLDOWN_KEY_PREFIX = "verification:cooldown:";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${verification-code.email-cooldown:60s}")
+    private Duration cooldown;
+
+    /**
+     * 尝试占用邮箱的发送冷却，冷却期内返回false
+     */
+    public boolean tryAcquire(String email) {
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(cooldownKey(email), "1", cooldown);
+            return Boolean.TRUE.equals(acquired);
+        } catch (Exception e) {
+            // Redis不可用时放行，仍有按IP限流和发送队列上限兜底
+            logger.warn("检查验证码发送冷却失败, 原因: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 发送未能提交时释放冷却，允许用户立即重试
+     */
+    public void release(String email) {
+        try {
+            stringRedisTemplate.delete(cooldownKey(email));
+        } catch (Exception e) {
+            logger.warn("释放验证码发送冷却失败, 原因: {}", e.getMessage());
+        }
+    }
+
+    public Duration getCooldown() {
+        return cooldown;
+    }
+
+    // 邮箱不区分大小写，避免通过改变大小写绕过冷却
+    private String cooldownKey(String email) {
+        return COOLDOWN_KEY_PREFIX + email.trim().toLowerCase(Locale.ROOT);
+    }
+}
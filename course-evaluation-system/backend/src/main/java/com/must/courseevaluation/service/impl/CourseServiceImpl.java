@@ -1,19 +1,27 @@
 package com.must.courseevaluation.service.impl;
 
 import com.must.courseevaluation.dto.CourseDto;
+import com.must.courseevaluation.dto.SearchHitDto;
 import com.must.courseevaluation.exception.ResourceNotFoundException;
 import com.must.courseevaluation.model.Course;
 import com.must.courseevaluation.model.Faculty;
+import com.must.courseevaluation.model.RatingAggregate;
 import com.must.courseevaluation.model.Teacher;
 import com.must.courseevaluation.repository.CourseRepository;
 import com.must.courseevaluation.repository.FacultyRepository;
 import com.must.courseevaluation.repository.TeacherRepository;
+import com.must.courseevaluation.service.CacheService;
+import com.must.courseevaluation.service.CatalogAutocompleteIndex;
 import com.must.courseevaluation.service.CourseService;
+import com.must.courseevaluation.service.RatingAggregateService;
+import com.must.courseevaluation.service.SearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,10 +36,22 @@ public class CourseServiceImpl implements CourseService {
     @Autowired
     private TeacherRepository teacherRepository;
 
+    @Autowired
+    private RatingAggregateService ratingAggregateService;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private CatalogAutocompleteIndex autocompleteIndex;
+
     @Override
     public List<CourseDto> getAllCourses() {
-        return courseRepository.findAll().stream()
-                .map(CourseDto::fromEntity)
+        return courseRepository.findAllWithRatings().stream()
+                .map(CourseDto::fromRow)
                 .collect(Collectors.toList());
     }
 
@@ -46,8 +66,8 @@ public class CourseServiceImpl implements CourseService {
     public List<CourseDto> getCoursesByFaculty(Long facultyId) {
         Faculty faculty = facultyRepository.findById(facultyId)
                 .orElseThrow(() -> new ResourceNotFoundException("院系不存在，ID: " + facultyId));
-        return courseRepository.findByFaculty(faculty).stream()
-                .map(CourseDto::fromEntity)
+        return courseRepository.findByFacultyIdWithRatings(faculty.getId()).stream()
+                .map(CourseDto::fromRow)
                 .collect(Collectors.toList());
     }
 
@@ -55,22 +75,27 @@ public class CourseServiceImpl implements CourseService {
     public List<CourseDto> getCoursesByTeacher(Long teacherId) {
         Teacher teacher = teacherRepository.findById(teacherId)
                 .orElseThrow(() -> new ResourceNotFoundException("教师不存在，ID: " + teacherId));
-        return courseRepository.findByTeacher(teacher).stream()
-                .map(CourseDto::fromEntity)
+        return courseRepository.findByTeacherIdWithRatings(teacher.getId()).stream()
+                .map(CourseDto::fromRow)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<CourseDto> getCoursesByType(Course.CourseType type) {
-        return courseRepository.findByType(type).stream()
-                .map(CourseDto::fromEntity)
+        return courseRepository.findByTypeWithRatings(type).stream()
+                .map(CourseDto::fromRow)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<CourseDto> searchCourses(String keyword) {
-        return courseRepository.findByNameContaining(keyword).stream()
-                .map(CourseDto::fromEntity)
+        // 空关键词沿用原来的行为，返回全部课程
+        if (keyword == null || keyword.isBlank()) {
+            return getAllCourses();
+        }
+        // 旧接口不分页，返回相关度最高的一页
+        return searchService.searchCourses(keyword, 0, SearchService.MAX_PAGE_SIZE).getItems().stream()
+                .map(SearchHitDto::getItem)
                 .collect(Collectors.toList());
     }
 
@@ -105,6 +130,9 @@ public class CourseServiceImpl implements CourseService {
 
         // 保存课程
         Course savedCourse = courseRepository.save(course);
+        ratingAggregateService.initAggregate(RatingAggregate.TargetType.COURSE, savedCourse.getId());
+        cacheService.evictCourseLists(CacheService.courseListScopes(savedCourse));
+        autocompleteIndex.indexCourse(savedCourse);
         return CourseDto.fromEntity(savedCourse);
     }
 
@@ -124,6 +152,10 @@ public class CourseServiceImpl implements CourseService {
         Faculty faculty = facultyRepository.findById(courseDto.getFacultyId())
                 .orElseThrow(() -> new ResourceNotFoundException("院系不存在，ID: " + courseDto.getFacultyId()));
 
+        Long oldTeacherId = existingCourse.getTeacher() != null ? existingCourse.getTeacher().getId() : null;
+        // 更新前所在的列表（原院系、原教师、原类型）也需要失效
+        Set<String> affectedScopes = CacheService.courseListScopes(existingCourse);
+
         // 更新课程信息
         existingCourse.setCode(courseDto.getCode());
         existingCourse.setName(courseDto.getName());
@@ -133,6 +165,7 @@ public class CourseServiceImpl implements CourseService {
         existingCourse.setAssessmentCriteria(courseDto.getAssessmentCriteria());
         existingCourse.setFaculty(faculty);
 
+
         // 更新教师信息
         if (courseDto.getTeacherId() != null) {
             Teacher teacher = teacherRepository.findById(courseDto.getTeacherId())
@@ -144,15 +177,31 @@ public class CourseServiceImpl implements CourseService {
 
         // 保存更新后的课程
         Course updatedCourse = courseRepository.save(existingCourse);
+
+        // 更换教师后，该课程的评价从原教师的聚合转移到新教师
+        if (!Objects.equals(oldTeacherId, courseDto.getTeacherId())) {
+            ratingAggregateService.recalculateTeacher(oldTeacherId);
+            ratingAggregateService.recalculateTeacher(courseDto.getTeacherId());
+        }
+        affectedScopes.addAll(CacheService.courseListScopes(updatedCourse));
+        cacheService.evictCourseLists(affectedScopes);
+        autocompleteIndex.indexCourse(updatedCourse);
         return CourseDto.fromEntity(updatedCourse);
     }
 
     @Override
     @Transactional
     public void deleteCourse(Long id) {
-        if (!courseRepository.existsById(id)) {
-            throw new ResourceNotFoundException("课程不存在，ID: " + id);
-        }
-        courseRepository.deleteById(id);
+        Course course = courseRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("课程不存在，ID: " + id));
+        Long teacherId = course.getTeacher() != null ? course.getTeacher().getId() : null;
+        Set<String> affectedScopes = CacheService.courseListScopes(course);
+        courseRepository.delete(course);
+        cacheService.evictCourseLists(affectedScopes);
+        autocompleteIndex.removeCourse(id);
+
+        // 课程的评价随课程级联删除，需要同步教师的评分聚合
+        ratingAggregateService.removeAggregate(RatingAggregate.TargetType.COURSE, id);
+        ratingAggregateService.recalculateTeacher(teacherId);
     }
-} 
\ No newline at end of file
+}
@@ -2,10 +2,14 @@ package com.must.courseevaluation.service.impl;
 
 import com.must.courseevaluation.dto.FacultyDto;
 import com.must.courseevaluation.model.Faculty;
+import com.must.courseevaluation.repository.CourseRepository;
 import com.must.courseevaluation.repository.FacultyRepository;
+import com.must.courseevaluation.service.CacheService;
+import com.must.courseevaluation.service.CatalogAutocompleteIndex;
 import com.must.courseevaluation.service.FacultyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -14,10 +18,17 @@ import java.util.stream.Collectors;
 public class FacultyServiceImpl implements FacultyService {
 
     private final FacultyRepository facultyRepository;
+    private final CacheService cacheService;
+    private final CourseRepository courseRepository;
+    private final CatalogAutocompleteIndex autocompleteIndex;
 
     @Autowired
-    public FacultyServiceImpl(FacultyRepository facultyRepository) {
+    public FacultyServiceImpl(FacultyRepository facultyRepository, CacheService cacheService,
+                              CourseRepository courseRepository, CatalogAutocompleteIndex autocompleteIndex) {
         this.facultyRepository = facultyRepository;
+        this.cacheService = cacheService;
+        this.courseRepository = courseRepository;
+        this.autocompleteIndex = autocompleteIndex;
     }
 
     @Override
@@ -32,6 +43,7 @@ public class FacultyServiceImpl implements FacultyService {
         faculty.setDescription(facultyDto.getDescription());
 
         Faculty savedFaculty = facultyRepository.save(faculty);
+        autocompleteIndex.indexFaculty(savedFaculty);
         return FacultyDto.fromEntity(savedFaculty);
     }
 
@@ -55,6 +67,7 @@ public class FacultyServiceImpl implements FacultyService {
     }
 
     @Override
+    @Transactional
     public FacultyDto update(Long id, FacultyDto facultyDto) {
         Faculty faculty = findById(id);
 
@@ -64,10 +77,21 @@ public class FacultyServiceImpl implements FacultyService {
             throw new RuntimeException("已存在同名学院: " + facultyDto.getName());
         }
 
+        boolean nameChanged = !faculty.getName().equals(facultyDto.getName());
         faculty.setName(facultyDto.getName());
         faculty.setDescription(facultyDto.getDescription());
 
         Faculty updatedFaculty = facultyRepository.save(faculty);
+        // 课程列表和课程检索文本中冗余了院系名称；检索文本与院系在同一事务中更新，
+        // 缓存失效和索引更新在事务提交后执行并广播，避免并发读取在提交前回填旧数据
+        if (nameChanged) {
+            List<Long> courseIds = courseRepository.findIdsByFacultyId(id);
+            if (!courseIds.isEmpty()) {
+                courseRepository.refreshSearchText(courseIds);
+            }
+        }
+        cacheService.evictAllCourseLists();
+        autocompleteIndex.indexFaculty(updatedFaculty);
         return FacultyDto.fromEntity(updatedFaculty);
     }
 
@@ -81,5 +105,6 @@ public class FacultyServiceImpl implements FacultyService {
         }
         
         facultyRepository.delete(faculty);
+        autocompleteIndex.removeFaculty(id);
     }
 } 
\ No newline at end of file
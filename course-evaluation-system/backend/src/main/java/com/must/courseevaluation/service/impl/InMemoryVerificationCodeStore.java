@@ -0,0 +1,63 @@
+package com.must.courseevaluation.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.must.courseevaluation.service.VerificationCodeStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内验证码存储，仅适用于单节点部署
+ * 使用有容量上限的过期缓存，过期条目自动清除，大量请求下内存占用有上界。
+ */
+@Component
+@ConditionalOnProperty(name = "verification-code.store", havingValue = "memory")
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+
+    private final Cache<String, StoredCode> codes;
+    private final int maxAttempts;
+
+    public InMemoryVerificationCodeStore(@Value("${verification-code.ttl:10m}") Duration ttl,
+                                         @Value("${verification-code.max-attempts:5}") int maxAttempts,
+                                         @Value("${verification-code.memory.maximum-size:100000}") long maximumSize) {
+        this.codes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void save(String email, String code) {
+        codes.put(email, new StoredCode(code));
+    }
+
+    @Override
+    public boolean verify(String email, String code) {
+        StoredCode stored = codes.getIfPresent(email);
+        if (stored == null) {
+            return false;
+        }
+        if (stored.code.equals(code)) {
+            // 只有成功移除的请求算作通过，保证验证码只能使用一次
+            return codes.asMap().remove(email, stored);
+        }
+        if (stored.failedAttempts.incrementAndGet() >= maxAttempts) {
+            codes.asMap().remove(email, stored);
+        }
+        return false;
+    }
+
+    private static final class StoredCode {
+        private final String code;
+        private final AtomicInteger failedAttempts = new AtomicInteger();
+
+        private StoredCode(String code) {
+            this.code = code;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.must.courseevaluation.service.impl;
+
+import com.must.courseevaluation.service.VerificationCodeStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 基于Redis的验证码存储，任一节点发送的验证码可在其他节点校验
+ * 校验、计数和删除在一次Lua脚本调用中原子完成，同一验证码不会被并发请求重复使用。
+ */
+@Component
+@ConditionalOnProperty(name = "verification-code.store", havingValue = "redis", matchIfMissing = true)
+public class RedisVerificationCodeStore implements VerificationCodeStore {
+
+    // KEYS[1]: 验证码键  KEYS[2]: 失败次数键  ARGV[1]: 提交的验证码  ARGV[2]: 最大失败次数
+    // 返回 1 表示匹配，0 表示不存在或不匹配
+    private static final String VERIFY_SCRIPT =
+            "local stored = redis.call('GET', KEYS[1]) " +
+            "if not stored then return 0 end " +
+            "if stored == ARGV[1] then " +
+            "  redis.call('DEL', KEYS[1], KEYS[2]) " +
+            "  return 1 " +
+            "end " +
+            "local attempts = redis.call('INCR', KEYS[2]) " +
+            "if attempts == 1 then " +
+            "  local ttl = redis.call('PTTL', KEYS[1]) " +
+            "  if ttl > 0 then redis.call('PEXPIRE', KEYS[2], ttl) end " +
+            "end " +
+            "if attempts >= tonumber(ARGV[2]) then redis.call('DEL', KEYS[1], KEYS[2]) end " +
+            "return 0";
+
+    private final DefaultRedisScript<Long> script = new DefaultRedisScript<>(VERIFY_SCRIPT, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration ttl;
+    private final int maxAttempts;
+
+    public RedisVerificationCodeStore(StringRedisTemplate stringRedisTemplate,
+                                      @Value("${verification-code.ttl:10m}") Duration ttl,
+                                      @Value("${verification-code.max-attempts:5}") int maxAttempts) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttl = ttl;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void save(String email, String code) {
+        stringRedisTemplate.opsForValue().set(codeKey(email), code, ttl);
+        stringRedisTemplate.delete(attemptsKey(email));
+    }
+
+    @Override
+    public boolean verify(String email, String code) {
+        Long matched = stringRedisTemplate.execute(script, List.of(codeKey(email), attemptsKey(email)),
+                code, String.valueOf(maxAttempts));
+        return matched != null && matched == 1;
+    }
+
+    // 两个键使用相同的hash tag，Redis集群下落在同一个slot，脚本可以同时操作
+    private String codeKey(String email) {
+        return "verification:{" + email + "}:code";
+    }
+
+    private String attemptsKey(String email) {
+        return "verification:{" + email + "}:attempts";
+    }
+}
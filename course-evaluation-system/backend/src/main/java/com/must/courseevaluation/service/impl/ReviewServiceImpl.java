@@ -1,17 +1,30 @@
 package com.must.courseevaluation.service.impl;
 
+import com.must.courseevaluation.dto.BatchDeleteResultDto;
+import com.must.courseevaluation.dto.CursorPageDto;
+import com.must.courseevaluation.dto.ReviewCursor;
 import com.must.courseevaluation.dto.ReviewDto;
 import com.must.courseevaluation.exception.ResourceNotFoundException;
 import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.model.RatingAggregate;
 import com.must.courseevaluation.model.Review;
 import com.must.courseevaluation.model.User;
 import com.must.courseevaluation.repository.CourseRepository;
 import com.must.courseevaluation.repository.ReviewRepository;
+import com.must.courseevaluation.repository.TeacherRepository;
 import com.must.courseevaluation.repository.UserRepository;
+import com.must.courseevaluation.security.UserDetailsImpl;
+import com.must.courseevaluation.security.UserDetailsServiceImpl;
+import com.must.courseevaluation.service.AsyncEmailService;
 import com.must.courseevaluation.service.ContentFilterService;
+import com.must.courseevaluation.service.RatingAggregateService;
 import com.must.courseevaluation.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +35,13 @@ import java.util.stream.Collectors;
 @Service
 public class ReviewServiceImpl implements ReviewService {
     
+    // 游标分页的默认和最大每页条数
+    private static final int DEFAULT_FEED_PAGE_SIZE = 20;
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    
+    // 批量删除时每条 IN (...) 语句的最大ID数，避免超出数据库的参数个数限制
+    private static final int BULK_DELETE_CHUNK_SIZE = 500;
+    
     @Autowired
     private ReviewRepository reviewRepository;
     
@@ -31,12 +51,24 @@ public class ReviewServiceImpl implements ReviewService {
     @Autowired
     private CourseRepository courseRepository;
     
+    @Autowired
+    private TeacherRepository teacherRepository;
+    
     @Autowired
     private ContentFilterService contentFilterService;
     
+    @Autowired
+    private RatingAggregateService ratingAggregateService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private AsyncEmailService asyncEmailService;
+    
     @Override
     public List<ReviewDto> getAllReviews() {
-        return reviewRepository.findAll().stream()
+        return reviewRepository.findAllWithUserAndCourse().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -53,18 +85,8 @@ public class ReviewServiceImpl implements ReviewService {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new ResourceNotFoundException("课程不存在，ID: " + courseId));
                 
-        List<Review> reviews = reviewRepository.findByCourse(course);
-        
-        // 对评论进行排序，置顶的评论排在前面，然后按创建时间降序排序
-        reviews.sort((r1, r2) -> {
-            if (r1.isPinned() && !r2.isPinned()) {
-                return -1;
-            } else if (!r1.isPinned() && r2.isPinned()) {
-                return 1;
-            } else {
-                return r2.getCreatedAt().compareTo(r1.getCreatedAt()); // 先创建的排后面
-            }
-        });
+        // 置顶的评论排在前面，然后按创建时间降序排序，排序由数据库完成
+        List<Review> reviews = reviewRepository.findByCourseOrderByPinnedDescCreatedAtDescIdDesc(course);
         
         return reviews.stream()
                 .map(this::convertToDto)
@@ -73,24 +95,43 @@ public class ReviewServiceImpl implements ReviewService {
     
     @Override
     public List<ReviewDto> getReviewsByTeacher(Long teacherId) {
-        List<Review> reviews = reviewRepository.findByTeacherId(teacherId);
-        
-        // 对评论进行排序，置顶的评论排在前面，然后按创建时间降序排序
-        reviews.sort((r1, r2) -> {
-            if (r1.isPinned() && !r2.isPinned()) {
-                return -1;
-            } else if (!r1.isPinned() && r2.isPinned()) {
-                return 1;
-            } else {
-                return r2.getCreatedAt().compareTo(r1.getCreatedAt()); // 先创建的排后面
-            }
-        });
+        // 置顶的评论排在前面，然后按创建时间降序排序，排序由数据库完成
+        List<Review> reviews = reviewRepository.findByTeacherIdOrderByFeed(teacherId);
         
         return reviews.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
+    @Override
+    public CursorPageDto<ReviewDto> getReviewFeedByCourse(Long courseId, String cursor, int size) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new ResourceNotFoundException("课程不存在，ID: " + courseId);
+        }
+        
+        int pageSize = normalizePageSize(size);
+        // 多取一条用于判断是否还有下一页
+        List<Review> reviews = loadFeed(cursor, pageSize + 1, (pinned, after, limit) -> after == null
+                ? reviewRepository.findCourseFeedSegment(courseId, pinned, limit)
+                : reviewRepository.findCourseFeedSegmentAfter(courseId, pinned, after.getCreatedAt(), after.getId(), limit));
+        
+        return toCursorPage(reviews, pageSize);
+    }
+    
+    @Override
+    public CursorPageDto<ReviewDto> getReviewFeedByTeacher(Long teacherId, String cursor, int size) {
+        if (!teacherRepository.existsById(teacherId)) {
+            throw new ResourceNotFoundException("教师不存在，ID: " + teacherId);
+        }
+        
+        int pageSize = normalizePageSize(size);
+        List<Review> reviews = loadFeed(cursor, pageSize + 1, (pinned, after, limit) -> after == null
+                ? reviewRepository.findTeacherFeedSegment(teacherId, pinned, limit)
+                : reviewRepository.findTeacherFeedSegmentAfter(teacherId, pinned, after.getCreatedAt(), after.getId(), limit));
+        
+        return toCursorPage(reviews, pageSize);
+    }
+    
     @Override
     public List<ReviewDto> getReviewsByUser(Long userId) {
         User user = userRepository.findById(userId)
@@ -131,6 +172,10 @@ public class ReviewServiceImpl implements ReviewService {
         review.setStatus(Review.ReviewStatus.APPROVED);
         
         Review savedReview = reviewRepository.save(review);
+        
+        // 同一事务内增量更新课程和教师的评分聚合
+        ratingAggregateService.reviewAdded(course.getId(), getTeacherId(course), savedReview.getRating());
+        
         return convertToDto(savedReview);
     }
     
@@ -148,6 +193,7 @@ public class ReviewServiceImpl implements ReviewService {
         // 过滤内容中的敏感词
         String filteredContent = contentFilterService.filterContent(reviewDto.getContent());
         
+        int oldRating = review.getRating();
         review.setContent(filteredContent);
         review.setRating(reviewDto.getRating());
         review.setAnonymous(reviewDto.isAnonymous());
@@ -157,33 +203,91 @@ public class ReviewServiceImpl implements ReviewService {
         review.setStatus(Review.ReviewStatus.APPROVED);
         
         Review updatedReview = reviewRepository.save(review);
+        updateRatingAggregate(updatedReview, oldRating);
         return convertToDto(updatedReview);
     }
     
     @Override
     @Transactional
     public void deleteReview(Long id) {
-        if (!reviewRepository.existsById(id)) {
-            throw new ResourceNotFoundException("评价不存在，ID: " + id);
+        Review review = reviewRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("评价不存在，ID: " + id));
+        Course course = review.getCourse();
+        reviewRepository.delete(review);
+        
+        ratingAggregateService.reviewRemoved(course.getId(), getTeacherId(course), review.getRating());
+    }
+    
+    @Override
+    @Transactional
+    public BatchDeleteResultDto deleteReviews(List<Long> ids) {
+        // 排序后分块，跨块也按ID递增的顺序加锁
+        List<Long> requestedIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        
+        // 按课程、教师累计被删除评价的 评分 -> 条数；TreeMap保证按ID顺序加锁，避免并发批量删除互相死锁
+        Map<Long, Map<Integer, Integer>> courseRatingCounts = new TreeMap<>();
+        Map<Long, Map<Integer, Integer>> teacherRatingCounts = new TreeMap<>();
+        Set<Long> foundIds = new HashSet<>();
+        int deletedCount = 0;
+        
+        for (int from = 0; from < requestedIds.size(); from += BULK_DELETE_CHUNK_SIZE) {
+            List<Long> chunk = requestedIds.subList(from, Math.min(from + BULK_DELETE_CHUNK_SIZE, requestedIds.size()));
+            List<Long> chunkFoundIds = new ArrayList<>();
+            for (Object[] row : reviewRepository.lockForDeletion(chunk)) {
+                Long reviewId = ((Number) row[0]).longValue();
+                Long courseId = ((Number) row[1]).longValue();
+                int rating = ((Number) row[3]).intValue();
+                chunkFoundIds.add(reviewId);
+                courseRatingCounts.computeIfAbsent(courseId, id -> new HashMap<>()).merge(rating, 1, Integer::sum);
+                if (row[2] != null) {
+                    Long teacherId = ((Number) row[2]).longValue();
+                    teacherRatingCounts.computeIfAbsent(teacherId, id -> new HashMap<>()).merge(rating, 1, Integer::sum);
+                }
+            }
+            if (!chunkFoundIds.isEmpty()) {
+                deletedCount += reviewRepository.deleteByIdIn(chunkFoundIds);
+                foundIds.addAll(chunkFoundIds);
+            }
         }
-        reviewRepository.deleteById(id);
+        
+        ratingAggregateService.reviewsRemoved(courseRatingCounts, teacherRatingCounts);
+        
+        List<Long> missingIds = requestedIds.stream()
+                .filter(id -> !foundIds.contains(id))
+                .collect(Collectors.toList());
+        return new BatchDeleteResultDto(deletedCount, missingIds);
     }
     
     @Override
     public Map<String, Object> getCourseRatings(Long courseId) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new ResourceNotFoundException("课程不存在，ID: " + courseId));
-                
-        List<Review> reviews = reviewRepository.findByCourse(course);
+        Map<String, Object> ratings = ratingAggregateService.getRatings(RatingAggregate.TargetType.COURSE, courseId);
+        if (ratings != null) {
+            return ratings;
+        }
         
-        return calculateRatings(reviews);
+        // 没有聚合数据时说明课程还没有评价，仍需校验课程是否存在
+        if (!courseRepository.existsById(courseId)) {
+            throw new ResourceNotFoundException("课程不存在，ID: " + courseId);
+        }
+        return emptyRatings();
     }
     
     @Override
     public Map<String, Object> getTeacherRatings(Long teacherId) {
-        List<Review> teacherReviews = reviewRepository.findByTeacherId(teacherId);
+        Map<String, Object> ratings = ratingAggregateService.getRatings(RatingAggregate.TargetType.TEACHER, teacherId);
+        if (ratings != null) {
+            return ratings;
+        }
         
-        return calculateRatings(teacherReviews);
+        // 没有聚合数据时说明教师还没有评价，仍需校验教师是否存在
+        if (!teacherRepository.existsById(teacherId)) {
+            throw new ResourceNotFoundException("教师不存在，ID: " + teacherId);
+        }
+        return emptyRatings();
     }
     
     @Override
@@ -204,14 +308,14 @@ public class ReviewServiceImpl implements ReviewService {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new ResourceNotFoundException("课程不存在，ID: " + courseId));
         
-        return reviewRepository.findByCourse(course).stream()
+        return reviewRepository.findByCourseOrderByPinnedDescCreatedAtDescIdDesc(course).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
     @Override
     public List<ReviewDto> getReviewsByTeacher(Long teacherId, boolean approvedOnly) {
-        return reviewRepository.findByTeacherId(teacherId).stream()
+        return reviewRepository.findByTeacherIdOrderByFeed(teacherId).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -219,7 +323,7 @@ public class ReviewServiceImpl implements ReviewService {
     @Override
     public List<ReviewDto> getReviewsByStatus(Review.ReviewStatus status) {
         // 返回所有评论，忽略状态参数
-        return reviewRepository.findAll().stream()
+        return reviewRepository.findAllWithUserAndCourse().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -233,16 +337,16 @@ public class ReviewServiceImpl implements ReviewService {
         // 过滤内容中的敏感词
         String filteredContent = contentFilterService.filterContent(reviewDto.getContent());
         
+        int oldRating = review.getRating();
         review.setContent(filteredContent);
         review.setRating(reviewDto.getRating());
         review.setAnonymous(reviewDto.isAnonymous());
         review.setUpdatedAt(LocalDateTime.now());
         
         // 只有管理员可以更改置顶状态
-        User user = userRepository.findById(reviewDto.getUserId())
-                .orElseThrow(() -> new ResourceNotFoundException("用户不存在，ID: " + reviewDto.getUserId()));
+        UserDetailsImpl user = findUserDetails(reviewDto.getUserId());
                 
-        if (user.getRole() == User.Role.ROLE_ADMIN) {
+        if (user.hasRole(User.Role.ROLE_ADMIN)) {
             review.setPinned(reviewDto.isPinned());
         }
         
@@ -250,6 +354,7 @@ public class ReviewServiceImpl implements ReviewService {
         review.setStatus(Review.ReviewStatus.APPROVED);
         
         Review updatedReview = reviewRepository.save(review);
+        updateRatingAggregate(updatedReview, oldRating);
         return convertToDto(updatedReview);
     }
     
@@ -261,6 +366,10 @@ public class ReviewServiceImpl implements ReviewService {
         
         // 如果状态是REJECTED，则直接删除评论，否则保持APPROVED状态
         if (status == Review.ReviewStatus.REJECTED) {
+            // 通知邮件与删除在同一事务中写入发件箱
+            User author = review.getUser();
+            asyncEmailService.submitModerationNoticeEmail(author.getEmail(), author.getUsername(),
+                    review.getCourse().getName(), review.getContent());
             deleteReview(id);
             return null;
         } else {
@@ -277,8 +386,8 @@ public class ReviewServiceImpl implements ReviewService {
                 .orElseThrow(() -> new ResourceNotFoundException("评价不存在，ID: " + id));
         
         // 检查是否是管理员
-        User currentUser = getCurrentUser();
-        if (currentUser.getRole() != User.Role.ROLE_ADMIN) {
+        UserDetailsImpl currentUser = getCurrentUser();
+        if (!currentUser.hasRole(User.Role.ROLE_ADMIN)) {
             throw new IllegalArgumentException("只有管理员可以置顶评价");
         }
         
@@ -294,8 +403,8 @@ public class ReviewServiceImpl implements ReviewService {
                 .orElseThrow(() -> new ResourceNotFoundException("评价不存在，ID: " + id));
         
         // 检查是否是管理员
-        User currentUser = getCurrentUser();
-        if (currentUser.getRole() != User.Role.ROLE_ADMIN) {
+        UserDetailsImpl currentUser = getCurrentUser();
+        if (!currentUser.hasRole(User.Role.ROLE_ADMIN)) {
             throw new IllegalArgumentException("只有管理员可以取消置顶评价");
         }
         
@@ -304,12 +413,75 @@ public class ReviewServiceImpl implements ReviewService {
         return convertToDto(updatedReview);
     }
     
+    private int normalizePageSize(int size) {
+        if (size <= 0) {
+            return DEFAULT_FEED_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_FEED_PAGE_SIZE);
+    }
+    
+    /**
+     * 按 置顶段 -> 非置顶段 的顺序取 fetchSize 条：游标位于置顶段时先取置顶段剩余部分，不足再从非置顶段开头补齐
+     */
+    private List<Review> loadFeed(String cursor, int fetchSize, FeedSegmentLoader loader) {
+        ReviewCursor after = (cursor == null || cursor.isEmpty()) ? null : ReviewCursor.decode(cursor);
+        if (after != null && !after.isPinned()) {
+            return loader.load(false, after, PageRequest.of(0, fetchSize));
+        }
+        
+        List<Review> reviews = new ArrayList<>(loader.load(true, after, PageRequest.of(0, fetchSize)));
+        if (reviews.size() < fetchSize) {
+            reviews.addAll(loader.load(false, null, PageRequest.of(0, fetchSize - reviews.size())));
+        }
+        return reviews;
+    }
+    
+    // 取某个置顶段中排在 after 之后的记录，after 为 null 时从段首开始
+    @FunctionalInterface
+    private interface FeedSegmentLoader {
+        List<Review> load(boolean pinned, ReviewCursor after, Pageable limit);
+    }
+    
+    private CursorPageDto<ReviewDto> toCursorPage(List<Review> reviews, int pageSize) {
+        boolean hasMore = reviews.size() > pageSize;
+        List<Review> page = hasMore ? reviews.subList(0, pageSize) : reviews;
+        String nextCursor = hasMore ? ReviewCursor.of(page.get(page.size() - 1)).encode() : null;
+        
+        List<ReviewDto> items = page.stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        return new CursorPageDto<>(items, nextCursor, hasMore);
+    }
+    
+    private Long getTeacherId(Course course) {
+        return course.getTeacher() != null ? course.getTeacher().getId() : null;
+    }
+    
+    private void updateRatingAggregate(Review review, int oldRating) {
+        Course course = review.getCourse();
+        ratingAggregateService.reviewRatingChanged(course.getId(), getTeacherId(course), oldRating, review.getRating());
+    }
+    
     // 获取当前登录用户
-    private User getCurrentUser() {
-        // 从Spring Security中获取当前用户
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("用户不存在: " + username));
+    private UserDetailsImpl getCurrentUser() {
+        // 从Spring Security中获取当前用户，认证时已构建好用户信息，无需再查库
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return userDetails;
+        }
+        try {
+            return userDetailsService.loadUserByUsername(authentication.getName());
+        } catch (UsernameNotFoundException e) {
+            throw new ResourceNotFoundException("用户不存在: " + authentication.getName());
+        }
+    }
+
+    private UserDetailsImpl findUserDetails(Long userId) {
+        try {
+            return userDetailsService.loadUserById(userId);
+        } catch (UsernameNotFoundException e) {
+            throw new ResourceNotFoundException("用户不存在，ID: " + userId);
+        }
     }
     
     private ReviewDto convertToDto(Review review) {
@@ -337,34 +509,12 @@ public class ReviewServiceImpl implements ReviewService {
         return dto;
     }
     
-    private Map<String, Object> calculateRatings(List<Review> reviews) {
+    // 还没有评价的课程或教师的评分统计
+    private Map<String, Object> emptyRatings() {
         Map<String, Object> result = new HashMap<>();
-        
-        if (reviews.isEmpty()) {
-            result.put("averageRating", 0.0);
-            result.put("totalReviews", 0);
-            result.put("ratingDistribution", new HashMap<Integer, Integer>());
-            return result;
-        }
-        
-        double averageRating = reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
-                .orElse(0.0);
-        
-        Map<Integer, Long> distribution = reviews.stream()
-                .collect(Collectors.groupingBy(Review::getRating, Collectors.counting()));
-        
-        // 确保所有评分都有数据
-        Map<Integer, Integer> formattedDistribution = new HashMap<>();
-        for (int i = 1; i <= 5; i++) {
-            formattedDistribution.put(i, distribution.getOrDefault(i, 0L).intValue());
-        }
-        
-        result.put("averageRating", Math.round(averageRating * 10) / 10.0);
-        result.put("totalReviews", reviews.size());
-        result.put("ratingDistribution", formattedDistribution);
-        
+        result.put("averageRating", 0.0);
+        result.put("totalReviews", 0);
+        result.put("ratingDistribution", new HashMap<Integer, Integer>());
         return result;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.must.courseevaluation.service.impl;
+
+import com.must.courseevaluation.dto.SensitiveWordDto;
+import com.must.courseevaluation.exception.ResourceNotFoundException;
+import com.must.courseevaluation.model.SensitiveWord;
+import com.must.courseevaluation.repository.SensitiveWordRepository;
+import com.must.courseevaluation.service.ContentFilterService;
+import com.must.courseevaluation.service.SensitiveWordService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 敏感词存储在数据库中，启动时加载，之后按版本签名轮询热更新。
+ * 多节点部署时，某节点修改词表后其他节点在下一次轮询时生效。
+ */
+@Service
+public class SensitiveWordServiceImpl implements SensitiveWordService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensitiveWordServiceImpl.class);
+
+    private final SensitiveWordRepository sensitiveWordRepository;
+    private final ContentFilterService contentFilterService;
+
+    // 上次加载时的词表签名，仅由轮询线程和管理接口写入
+    private volatile String loadedSignature;
+
+    // 串行化重新加载；加载过程中有数据库查询，用ReentrantLock而不是synchronized，避免固定虚拟线程
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    @Autowired
+    public SensitiveWordServiceImpl(SensitiveWordRepository sensitiveWordRepository,
+                                    ContentFilterService contentFilterService) {
+        this.sensitiveWordRepository = sensitiveWordRepository;
+        this.contentFilterService = contentFilterService;
+    }
+
+    /**
+     * 首次启动时词表为空，写入内置默认词表
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initDictionary() {
+        if (sensitiveWordRepository.count() == 0) {
+            List<SensitiveWord> defaults = contentFilterService.getDefaultSensitiveWords().stream()
+                    .map(word -> {
+                        SensitiveWord sensitiveWord = new SensitiveWord();
+                        sensitiveWord.setWord(word);
+                        return sensitiveWord;
+                    })
+                    .collect(Collectors.toList());
+            sensitiveWordRepository.saveAll(defaults);
+            logger.info("敏感词表为空，已写入 {} 个默认敏感词", defaults.size());
+        }
+        reloadIfChanged();
+    }
+
+    @Scheduled(initialDelayString = "${content-filter.reload-interval-ms:30000}",
+               fixedDelayString = "${content-filter.reload-interval-ms:30000}")
+    public void scheduledReload() {
+        try {
+            reloadIfChanged();
+        } catch (Exception e) {
+            // 加载失败时继续使用当前匹配器
+            logger.error("敏感词表热更新失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean reloadIfChanged() {
+        reloadLock.lock();
+        try {
+            String signature = sensitiveWordRepository.findVersionSignature();
+            if (signature.equals(loadedSignature)) {
+                return false;
+            }
+
+            // 在调用线程上编译新匹配器（轮询线程、启动线程或修改词表的管理请求），
+            // 编译期间过滤请求继续使用旧匹配器，完成后整体替换，过滤请求不会被阻塞
+            List<String> words = sensitiveWordRepository.findAllWords();
+            contentFilterService.updateSensitiveWords(words);
+            loadedSignature = signature;
+            logger.info("敏感词表已重新加载，共 {} 个词", contentFilterService.getSensitiveWordCount());
+            return true;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    @Override
+    public List<SensitiveWordDto> findAll() {
+        return sensitiveWordRepository.findAll().stream()
+                .map(SensitiveWordDto::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public SensitiveWordDto create(SensitiveWordDto sensitiveWordDto) {
+        String word = sensitiveWordDto.getWord().trim();
+        if (sensitiveWordRepository.existsByWord(word)) {
+            throw new IllegalArgumentException("敏感词已存在: " + word);
+        }
+
+        SensitiveWord sensitiveWord = new SensitiveWord();
+        sensitiveWord.setWord(word);
+        SensitiveWord saved = sensitiveWordRepository.saveAndFlush(sensitiveWord);
+
+        reloadIfChanged();
+        return SensitiveWordDto.fromEntity(saved);
+    }
+
+    @Override
+    @Transactional
+    public void delete(Long id) {
+        if (!sensitiveWordRepository.existsById(id)) {
+            throw new ResourceNotFoundException("敏感词不存在，ID: " + id);
+        }
+        sensitiveWordRepository.deleteById(id);
+        sensitiveWordRepository.flush();
+
+        reloadIfChanged();
+    }
+}
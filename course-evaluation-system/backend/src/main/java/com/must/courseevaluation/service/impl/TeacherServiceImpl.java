@@ -2,12 +2,18 @@ package com.must.courseevaluation.service.impl;
 
 import com.must.courseevaluation.dto.TeacherDto;
 import com.must.courseevaluation.model.Faculty;
+import com.must.courseevaluation.model.RatingAggregate;
 import com.must.courseevaluation.model.Teacher;
+import com.must.courseevaluation.repository.CourseRepository;
 import com.must.courseevaluation.repository.FacultyRepository;
 import com.must.courseevaluation.repository.TeacherRepository;
+import com.must.courseevaluation.service.CacheService;
+import com.must.courseevaluation.service.CatalogAutocompleteIndex;
+import com.must.courseevaluation.service.RatingAggregateService;
 import com.must.courseevaluation.service.TeacherService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -17,11 +23,21 @@ public class TeacherServiceImpl implements TeacherService {
 
     private final TeacherRepository teacherRepository;
     private final FacultyRepository facultyRepository;
+    private final RatingAggregateService ratingAggregateService;
+    private final CacheService cacheService;
+    private final CourseRepository courseRepository;
+    private final CatalogAutocompleteIndex autocompleteIndex;
 
     @Autowired
-    public TeacherServiceImpl(TeacherRepository teacherRepository, FacultyRepository facultyRepository) {
+    public TeacherServiceImpl(TeacherRepository teacherRepository, FacultyRepository facultyRepository,
+                              RatingAggregateService ratingAggregateService, CacheService cacheService,
+                              CourseRepository courseRepository, CatalogAutocompleteIndex autocompleteIndex) {
         this.teacherRepository = teacherRepository;
         this.facultyRepository = facultyRepository;
+        this.ratingAggregateService = ratingAggregateService;
+        this.cacheService = cacheService;
+        this.courseRepository = courseRepository;
+        this.autocompleteIndex = autocompleteIndex;
     }
 
     @Override
@@ -45,6 +61,8 @@ public class TeacherServiceImpl implements TeacherService {
 
         // 保存教师
         Teacher savedTeacher = teacherRepository.save(teacher);
+        ratingAggregateService.initAggregate(RatingAggregate.TargetType.TEACHER, savedTeacher.getId());
+        autocompleteIndex.indexTeacher(savedTeacher);
 
         // 返回DTO
         return TeacherDto.fromEntity(savedTeacher);
@@ -81,8 +99,10 @@ public class TeacherServiceImpl implements TeacherService {
     }
 
     @Override
+    @Transactional
     public TeacherDto update(Long id, TeacherDto teacherDto) {
         Teacher teacher = findById(id);
+        boolean nameChanged = false;
 
         // 如果名称已更改，检查是否与现有名称冲突
         if (teacherDto.getName() != null && !teacher.getName().equals(teacherDto.getName())) {
@@ -90,6 +110,7 @@ public class TeacherServiceImpl implements TeacherService {
                 throw new RuntimeException("教师名称已存在");
             }
             teacher.setName(teacherDto.getName());
+            nameChanged = true;
         }
 
         // 更新其他字段
@@ -114,17 +135,37 @@ public class TeacherServiceImpl implements TeacherService {
 
         // 保存更新
         Teacher updatedTeacher = teacherRepository.save(teacher);
+        // 课程列表和课程检索文本中冗余了教师姓名；检索文本与教师在同一事务中更新，
+        // 缓存失效和索引更新在事务提交后执行并广播，避免并发读取在提交前回填旧数据
+        if (nameChanged) {
+            refreshCourseSearchText(courseRepository.findIdsByTeacherId(id));
+        }
+        cacheService.evictAllCourseLists();
+        autocompleteIndex.indexTeacher(updatedTeacher);
 
         // 返回DTO
         return TeacherDto.fromEntity(updatedTeacher);
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
         if (!teacherRepository.existsById(id)) {
             throw new RuntimeException("未找到教师，ID: " + id);
         }
+        // 删除后课程的teacher_id被置空，需先记下受影响的课程再重建其检索文本
+        List<Long> courseIds = courseRepository.findIdsByTeacherId(id);
         teacherRepository.deleteById(id);
+        refreshCourseSearchText(courseIds);
+        ratingAggregateService.removeAggregate(RatingAggregate.TargetType.TEACHER, id);
+        cacheService.evictAllCourseLists();
+        autocompleteIndex.removeTeacher(id);
+    }
+
+    private void refreshCourseSearchText(List<Long> courseIds) {
+        if (!courseIds.isEmpty()) {
+            courseRepository.refreshSearchText(courseIds);
+        }
     }
 
     @Override
@@ -3,7 +3,11 @@ package com.must.courseevaluation.service.impl;
 import com.must.courseevaluation.dto.UserDto;
 import com.must.courseevaluation.dto.auth.RegisterRequest;
 import com.must.courseevaluation.model.User;
+import com.must.courseevaluation.repository.ReviewRepository;
 import com.must.courseevaluation.repository.UserRepository;
+import com.must.courseevaluation.security.TokenVersionCache;
+import com.must.courseevaluation.security.UserDetailsCache;
+import com.must.courseevaluation.service.RatingAggregateService;
 import com.must.courseevaluation.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,8 +15,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,12 +27,22 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ReviewRepository reviewRepository;
+    private final RatingAggregateService ratingAggregateService;
+    private final TokenVersionCache tokenVersionCache;
+    private final UserDetailsCache userDetailsCache;
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           ReviewRepository reviewRepository, RatingAggregateService ratingAggregateService,
+                           TokenVersionCache tokenVersionCache, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.reviewRepository = reviewRepository;
+        this.ratingAggregateService = ratingAggregateService;
+        this.tokenVersionCache = tokenVersionCache;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
@@ -78,8 +95,11 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserDto update(Long id, UserDto userDto) {
         User user = findById(id);
+        String oldUsername = user.getUsername();
         boolean statusChanged = false;
         boolean commentStatusChanged = false;
+        // 令牌中携带的声明（用户名、邮箱、角色、状态）或密码变化时，已签发的令牌需要失效
+        boolean claimsChanged = false;
         
         if (userDto.isActive() != user.isActive()) {
             logger.info("用户状态更改 - 用户ID: {}, 用户名: {}, 旧状态: {}, 新状态: {}", 
@@ -100,6 +120,7 @@ public class UserServiceImpl implements UserService {
             }
             logger.info("用户名更改 - 用户ID: {}, 旧用户名: {}, 新用户名: {}", id, user.getUsername(), userDto.getUsername());
             user.setUsername(userDto.getUsername());
+            claimsChanged = true;
         }
 
         if (userDto.getEmail() != null && !user.getEmail().equals(userDto.getEmail())) {
@@ -107,6 +128,7 @@ public class UserServiceImpl implements UserService {
                 throw new RuntimeException("电子邮件已被使用");
             }
             user.setEmail(userDto.getEmail());
+            claimsChanged = true;
         }
 
         if (userDto.getStudentId() != null) {
@@ -117,14 +139,16 @@ public class UserServiceImpl implements UserService {
             user.setFullName(userDto.getFullName());
         }
 
-        if (userDto.getRole() != null) {
+        if (userDto.getRole() != null && userDto.getRole() != user.getRole()) {
             user.setRole(userDto.getRole());
+            claimsChanged = true;
         }
         
         // 更新密码，如果提供了新密码
         if (userDto.getPassword() != null && !userDto.getPassword().isEmpty()) {
             logger.info("用户密码更改 - 用户ID: {}, 用户名: {}", id, user.getUsername());
             user.setPassword(passwordEncoder.encode(userDto.getPassword()));
+            claimsChanged = true;
         }
         
         // 更新active状态（账号启用/停用）
@@ -133,8 +157,14 @@ public class UserServiceImpl implements UserService {
         // 更新canComment状态（禁言/允许评论）
         user.setCanComment(userDto.isCanComment());
 
+        if (claimsChanged || statusChanged || commentStatusChanged) {
+            user.setTokenVersion(user.getTokenVersion() + 1);
+        }
+
         // 保存更新后的用户
         User updatedUser = userRepository.save(user);
+        tokenVersionCache.invalidate(id);
+        userDetailsCache.evict(id, oldUsername, updatedUser.getUsername());
         
         if (statusChanged || commentStatusChanged) {
             logger.info("用户状态更新成功 - 用户ID: {}, 用户名: {}", id, updatedUser.getUsername());
@@ -145,11 +175,25 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
         if (!userRepository.existsById(id)) {
             throw new RuntimeException("用户不存在，ID: " + id);
         }
+        // 用户的评价会被级联删除，先记下受影响的课程和教师
+        List<Object[]> affected = reviewRepository.findReviewedCourseAndTeacherIdsByUserId(id);
         userRepository.deleteById(id);
+        tokenVersionCache.invalidate(id);
+        userDetailsCache.evict(id);
+
+        Set<Long> teacherIds = new HashSet<>();
+        for (Object[] row : affected) {
+            ratingAggregateService.recalculateCourse((Long) row[0]);
+            if (row[1] != null) {
+                teacherIds.add((Long) row[1]);
+            }
+        }
+        teacherIds.forEach(ratingAggregateService::recalculateTeacher);
     }
 
     @Override
@@ -1,46 +1,30 @@
 package com.must.courseevaluation.service.impl;
 
 import com.must.courseevaluation.service.VerificationCodeService;
+import com.must.courseevaluation.service.VerificationCodeStore;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.security.SecureRandom;
 
 @Service
 public class VerificationCodeServiceImpl implements VerificationCodeService {
 
-    // 验证码有效期（分钟）
-    private static final int EXPIRATION_MINUTES = 10;
-    
-    // 存储验证码的Map: key是邮箱，value是包含验证码和过期时间的对象
-    private final Map<String, VerificationCodeInfo> verificationCodes = new ConcurrentHashMap<>();
-    
-    // 清理过期验证码的调度器
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    
-    public VerificationCodeServiceImpl() {
-        // 每分钟执行一次清理过期验证码的任务
-        scheduler.scheduleAtFixedRate(this::cleanExpiredCodes, 1, 1, TimeUnit.MINUTES);
-    }
+    private final SecureRandom random = new SecureRandom();
+
+    // 验证码的存储、过期和失败次数限制由具体的存储实现负责
+    @Autowired
+    private VerificationCodeStore verificationCodeStore;
     
     @Override
     public String generateVerificationCode() {
         // 生成6位数字验证码
-        return String.format("%06d", new Random().nextInt(1000000));
+        return String.format("%06d", random.nextInt(1000000));
     }
     
     @Override
     public void storeVerificationCode(String email, String code) {
-        // 计算过期时间
-        LocalDateTime expirationTime = LocalDateTime.now().plusMinutes(EXPIRATION_MINUTES);
-        
-        // 存储验证码和过期时间
-        verificationCodes.put(email, new VerificationCodeInfo(code, expirationTime));
+        verificationCodeStore.save(email, code);
     }
     
     @Override
@@ -50,65 +34,10 @@ public class VerificationCodeServiceImpl implements VerificationCodeService {
             return true;
         }
         
-        // 获取存储的验证码信息
-        VerificationCodeInfo storedInfo = verificationCodes.get(email);
-        
-        // 如果没有找到验证码或验证码已过期，返回false
-        if (storedInfo == null || storedInfo.isExpired()) {
+        if (email == null || code == null) {
             return false;
         }
         
-        // 验证码是否匹配
-        boolean isValid = storedInfo.getCode().equals(code);
-        
-        // 如果验证成功，移除验证码
-        if (isValid) {
-            verificationCodes.remove(email);
-        }
-        
-        return isValid;
-    }
-    
-    /**
-     * 清理过期的验证码
-     */
-    private void cleanExpiredCodes() {
-        verificationCodes.entrySet().removeIf(entry -> entry.getValue().isExpired());
-    }
-    
-    /**
-     * 验证码信息类，包含验证码和过期时间
-     */
-    private static class VerificationCodeInfo {
-        private final String code;
-        private final LocalDateTime expirationTime;
-        
-        public VerificationCodeInfo(String code, LocalDateTime expirationTime) {
-            this.code = code;
-            this.expirationTime = expirationTime;
-        }
-        
-        public String getCode() {
-            return code;
-        }
-        
-        public boolean isExpired() {
-            return LocalDateTime.now().isAfter(expirationTime);
-        }
-    }
-    
-    /**
-     * 关闭调度器
-     */
-    public void shutdownScheduler() {
-        scheduler.shutdown();
-    }
-    
-    /**
-     * Bean销毁时调用
-     */
-    @jakarta.annotation.PreDestroy
-    public void preDestroy() {
-        shutdownScheduler();
+        return verificationCodeStore.verify(email, code);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+-- PostgreSQL基础表结构
+-- 全部使用 IF NOT EXISTS：已有数据库以版本0建立基线后执行本脚本，只补齐缺失的表和列
+-- 已有的表不会被 CREATE TABLE 修改，因此每张表之后逐列 ADD COLUMN IF NOT EXISTS，且位于依赖这些列的索引之前。
+-- 有默认值的列按默认值回填；没有默认值的 NOT NULL 列无法为已有行取值，补列时不加 NOT NULL
+
+-- 用户表
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(50) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    full_name VARCHAR(100),
+    student_id VARCHAR(50) UNIQUE,
+    active BOOLEAN NOT NULL DEFAULT TRUE,
+    role VARCHAR(20) NOT NULL CHECK (role IN ('ROLE_ADMIN', 'ROLE_MODERATOR', 'ROLE_STUDENT')),
+    can_comment BOOLEAN NOT NULL DEFAULT TRUE,
+    token_version INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS username VARCHAR(50) UNIQUE,
+    ADD COLUMN IF NOT EXISTS password VARCHAR(255),
+    ADD COLUMN IF NOT EXISTS email VARCHAR(100) UNIQUE,
+    ADD COLUMN IF NOT EXISTS full_name VARCHAR(100),
+    ADD COLUMN IF NOT EXISTS student_id VARCHAR(50) UNIQUE,
+    ADD COLUMN IF NOT EXISTS active BOOLEAN NOT NULL DEFAULT TRUE,
+    ADD COLUMN IF NOT EXISTS role VARCHAR(20) CHECK (role IN ('ROLE_ADMIN', 'ROLE_MODERATOR', 'ROLE_STUDENT')),
+    ADD COLUMN IF NOT EXISTS can_comment BOOLEAN NOT NULL DEFAULT TRUE,
+    ADD COLUMN IF NOT EXISTS token_version INT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+
+-- 院系表
+CREATE TABLE IF NOT EXISTS faculties (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE,
+    description TEXT
+);
+
+ALTER TABLE faculties
+    ADD COLUMN IF NOT EXISTS name VARCHAR(100) UNIQUE,
+    ADD COLUMN IF NOT EXISTS description TEXT;
+
+-- 教师表
+CREATE TABLE IF NOT EXISTS teachers (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    title VARCHAR(50),
+    email VARCHAR(100),
+    bio TEXT,
+    faculty_id BIGINT REFERENCES faculties (id) ON DELETE SET NULL
+);
+
+ALTER TABLE teachers
+    ADD COLUMN IF NOT EXISTS name VARCHAR(100),
+    ADD COLUMN IF NOT EXISTS title VARCHAR(50),
+    ADD COLUMN IF NOT EXISTS email VARCHAR(100),
+    ADD COLUMN IF NOT EXISTS bio TEXT,
+    ADD COLUMN IF NOT EXISTS faculty_id BIGINT REFERENCES faculties (id) ON DELETE SET NULL;
+
+-- 课程表
+CREATE TABLE IF NOT EXISTS courses (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    code VARCHAR(20) NOT NULL UNIQUE,
+    name VARCHAR(100) NOT NULL,
+    credits DOUBLE PRECISION NOT NULL DEFAULT 3.0,
+    description TEXT,
+    type VARCHAR(20) NOT NULL CHECK (type IN ('COMPULSORY', 'ELECTIVE')),
+    assessment_criteria TEXT,
+    faculty_id BIGINT NOT NULL REFERENCES faculties (id),
+    teacher_id BIGINT REFERENCES teachers (id) ON DELETE SET NULL
+);
+
+ALTER TABLE courses
+    ADD COLUMN IF NOT EXISTS code VARCHAR(20) UNIQUE,
+    ADD COLUMN IF NOT EXISTS name VARCHAR(100),
+    ADD COLUMN IF NOT EXISTS credits DOUBLE PRECISION NOT NULL DEFAULT 3.0,
+    ADD COLUMN IF NOT EXISTS description TEXT,
+    ADD COLUMN IF NOT EXISTS type VARCHAR(20) CHECK (type IN ('COMPULSORY', 'ELECTIVE')),
+    ADD COLUMN IF NOT EXISTS assessment_criteria TEXT,
+    ADD COLUMN IF NOT EXISTS faculty_id BIGINT REFERENCES faculties (id),
+    ADD COLUMN IF NOT EXISTS teacher_id BIGINT REFERENCES teachers (id) ON DELETE SET NULL;
+
+-- 评价表
+CREATE TABLE IF NOT EXISTS reviews (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content TEXT NOT NULL,
+    rating INT NOT NULL,
+    anonymous BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    status VARCHAR(20) NOT NULL DEFAULT 'APPROVED' CHECK (status IN ('PENDING', 'APPROVED', 'REJECTED')),
+    pinned BOOLEAN NOT NULL DEFAULT FALSE,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    course_id BIGINT NOT NULL REFERENCES courses (id) ON DELETE CASCADE
+);
+
+ALTER TABLE reviews
+    ADD COLUMN IF NOT EXISTS content TEXT,
+    ADD COLUMN IF NOT EXISTS rating INT,
+    ADD COLUMN IF NOT EXISTS anonymous BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD COLUMN IF NOT EXISTS created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS status VARCHAR(20) NOT NULL DEFAULT 'APPROVED'
+        CHECK (status IN ('PENDING', 'APPROVED', 'REJECTED')),
+    ADD COLUMN IF NOT EXISTS pinned BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD COLUMN IF NOT EXISTS user_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
+    ADD COLUMN IF NOT EXISTS course_id BIGINT REFERENCES courses (id) ON DELETE CASCADE;
+
+-- 评价列表 (pinned desc, created_at desc, id desc) 排序和游标分页
+CREATE INDEX IF NOT EXISTS idx_reviews_course_feed
+    ON reviews (course_id, pinned DESC, created_at DESC, id DESC);
+
+-- 评分聚合表（按课程/教师增量维护评分统计）
+CREATE TABLE IF NOT EXISTS rating_aggregates (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    target_type VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    review_count BIGINT NOT NULL DEFAULT 0,
+    star1_count BIGINT NOT NULL DEFAULT 0,
+    star2_count BIGINT NOT NULL DEFAULT 0,
+    star3_count BIGINT NOT NULL DEFAULT 0,
+    star4_count BIGINT NOT NULL DEFAULT 0,
+    star5_count BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_rating_aggregates_target UNIQUE (target_type, target_id)
+);
+
+ALTER TABLE rating_aggregates
+    ADD COLUMN IF NOT EXISTS target_type VARCHAR(20),
+    ADD COLUMN IF NOT EXISTS target_id BIGINT,
+    ADD COLUMN IF NOT EXISTS rating_sum BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS review_count BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS star1_count BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS star2_count BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS star3_count BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS star4_count BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS star5_count BIGINT NOT NULL DEFAULT 0;
+
+-- 敏感词表
+CREATE TABLE IF NOT EXISTS sensitive_words (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    word VARCHAR(100) NOT NULL UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE sensitive_words
+    ADD COLUMN IF NOT EXISTS word VARCHAR(100) UNIQUE,
+    ADD COLUMN IF NOT EXISTS created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+-- 发件箱表（邮件与业务操作同事务写入，由后台任务投递）
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    recipient VARCHAR(100) NOT NULL,
+    subject VARCHAR(200) NOT NULL,
+    body TEXT NOT NULL,
+    dedupe_key VARCHAR(150),
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP,
+    last_error VARCHAR(500)
+);
+
+ALTER TABLE email_outbox
+    ADD COLUMN IF NOT EXISTS recipient VARCHAR(100),
+    ADD COLUMN IF NOT EXISTS subject VARCHAR(200),
+    ADD COLUMN IF NOT EXISTS body TEXT,
+    ADD COLUMN IF NOT EXISTS dedupe_key VARCHAR(150),
+    ADD COLUMN IF NOT EXISTS status VARCHAR(20),
+    ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS sent_at TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS last_error VARCHAR(500);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_pending ON email_outbox (status, next_attempt_at);
+CREATE INDEX IF NOT EXISTS idx_email_outbox_dedupe ON email_outbox (dedupe_key);
@@ -0,0 +1,24 @@
+-- 课程/教师搜索所需的PostgreSQL扩展、列和索引（可重复执行）
+-- 需要数据库以UTF-8编码且LC_CTYPE非C，pg_trgm才能正确切分中文三元组
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- 课程检索文本：代码、名称、简介、教师姓名、院系名称，由应用在写入时维护
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS search_text TEXT;
+
+-- 回填已有课程
+UPDATE courses c SET search_text = concat_ws(' ', c.code, c.name, c.description,
+    (SELECT t.name FROM teachers t WHERE t.id = c.teacher_id),
+    (SELECT f.name FROM faculties f WHERE f.id = c.faculty_id))
+WHERE c.search_text IS NULL;
+
+-- 整词匹配和相关度排序（表达式需与 CourseRepository.searchRanked 中的完全一致）
+CREATE INDEX IF NOT EXISTS idx_courses_search_fts
+    ON courses USING GIN (to_tsvector('simple', coalesce(search_text, '')));
+
+-- 中文和部分词匹配（ILIKE '%关键词%'）
+CREATE INDEX IF NOT EXISTS idx_courses_search_trgm
+    ON courses USING GIN (search_text gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_teachers_name_trgm
+    ON teachers USING GIN (name gin_trgm_ops);
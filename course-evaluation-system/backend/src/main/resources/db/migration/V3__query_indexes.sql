@@ -0,0 +1,21 @@
+-- 仓库查询使用的索引；PostgreSQL不会为外键列自动建索引
+
+-- existsByUserAndCourse（每次提交评价）、findByUser、删除用户前的受影响课程查询，以及删除用户时的级联删除
+CREATE INDEX IF NOT EXISTS idx_reviews_user_course ON reviews (user_id, course_id);
+
+-- 按课程统计评分分布（countRatingsByCourseId、countRatingsGroupedByCourse），可只扫索引
+CREATE INDEX IF NOT EXISTS idx_reviews_course_rating ON reviews (course_id, rating);
+
+-- 按院系/教师列出课程和取课程ID（findIdsByFacultyId、findIdsByTeacherId）；
+-- 教师维度的评价查询和评分统计都先经 teacher_id 找到课程，再按 course_id 取评价
+CREATE INDEX IF NOT EXISTS idx_courses_faculty ON courses (faculty_id, id);
+CREATE INDEX IF NOT EXISTS idx_courses_teacher ON courses (teacher_id, id);
+
+-- 按课程类型过滤（findByTypeWithRatings、课程目录）
+CREATE INDEX IF NOT EXISTS idx_courses_type ON courses (type);
+
+-- findByFacultyId，以及删除院系时把教师的 faculty_id 置空
+CREATE INDEX IF NOT EXISTS idx_teachers_faculty ON teachers (faculty_id);
+
+-- findByName / existsByName 的等值查询（三元组索引不适合等值匹配）
+CREATE INDEX IF NOT EXISTS idx_teachers_name ON teachers (name);
@@ -0,0 +1,10 @@
+-- 同一去重键最多只有一封待发送邮件，并发入队时由 ON CONFLICT 合并而不是各插一行
+
+-- 已有的重复待发送邮件只保留最新的一封
+DELETE FROM email_outbox e
+USING email_outbox newer
+WHERE e.status = 'PENDING' AND newer.status = 'PENDING'
+  AND e.dedupe_key = newer.dedupe_key AND e.id < newer.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_email_outbox_pending_dedupe
+    ON email_outbox (dedupe_key) WHERE status = 'PENDING';
@@ -0,0 +1,10 @@
+-- 课程检索文本的tsvector存为生成列：排名时ts_rank_cd直接读取，不再对每个命中行重新分词
+-- 写入由数据库维护，应用实体不映射此列
+
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(search_text, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_courses_search_vector ON courses USING GIN (search_vector);
+
+-- 原表达式索引由上面的列索引取代
+DROP INDEX IF EXISTS idx_courses_search_fts;
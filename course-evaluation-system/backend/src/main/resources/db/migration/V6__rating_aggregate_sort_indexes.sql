@@ -0,0 +1,22 @@
+-- 课程目录按平均分、评价数排序和按最低评分过滤：平均分存为列并与评价数一起建索引，
+-- 排序和过滤可沿索引扫描，不必为每个课程计算 rating_sum / review_count 后再排序
+
+ALTER TABLE rating_aggregates ADD COLUMN IF NOT EXISTS avg_rating DOUBLE PRECISION NOT NULL DEFAULT 0;
+
+UPDATE rating_aggregates
+SET avg_rating = CASE WHEN review_count > 0 THEN rating_sum::double precision / review_count ELSE 0 END;
+
+-- 目录查询以内连接读取聚合行，每门课程和每位教师都必须有一行（回填时只为有评价的目标建了行）
+INSERT INTO rating_aggregates (target_type, target_id)
+SELECT 'COURSE', id FROM courses
+ON CONFLICT (target_type, target_id) DO NOTHING;
+
+INSERT INTO rating_aggregates (target_type, target_id)
+SELECT 'TEACHER', id FROM teachers
+ON CONFLICT (target_type, target_id) DO NOTHING;
+
+CREATE INDEX IF NOT EXISTS idx_rating_aggregates_avg
+    ON rating_aggregates (target_type, avg_rating, target_id);
+
+CREATE INDEX IF NOT EXISTS idx_rating_aggregates_review_count
+    ON rating_aggregates (target_type, review_count, target_id);
@@ -0,0 +1,36 @@
+-- 从评价表重算评分聚合：V6 为每门课程和每位教师补建了零值行，聚合表因此不再为空，
+-- 启动时"聚合表为空才回填"的检查在已有评价的库上不会触发，这里在迁移中完成回填。
+-- 聚合完全由评价推导，重算可重复执行；先清零再按评价汇总覆盖，避免残留过期计数
+
+UPDATE rating_aggregates
+SET rating_sum = 0, review_count = 0,
+    star1_count = 0, star2_count = 0, star3_count = 0, star4_count = 0, star5_count = 0,
+    avg_rating = 0;
+
+INSERT INTO rating_aggregates (target_type, target_id, rating_sum, review_count,
+                               star1_count, star2_count, star3_count, star4_count, star5_count, avg_rating)
+SELECT 'COURSE', r.course_id, SUM(r.rating), COUNT(*),
+       COUNT(*) FILTER (WHERE r.rating = 1), COUNT(*) FILTER (WHERE r.rating = 2),
+       COUNT(*) FILTER (WHERE r.rating = 3), COUNT(*) FILTER (WHERE r.rating = 4),
+       COUNT(*) FILTER (WHERE r.rating = 5), AVG(r.rating)
+FROM reviews r
+GROUP BY r.course_id
+ON CONFLICT (target_type, target_id) DO UPDATE
+SET rating_sum = EXCLUDED.rating_sum, review_count = EXCLUDED.review_count,
+    star1_count = EXCLUDED.star1_count, star2_count = EXCLUDED.star2_count, star3_count = EXCLUDED.star3_count,
+    star4_count = EXCLUDED.star4_count, star5_count = EXCLUDED.star5_count, avg_rating = EXCLUDED.avg_rating;
+
+INSERT INTO rating_aggregates (target_type, target_id, rating_sum, review_count,
+                               star1_count, star2_count, star3_count, star4_count, star5_count, avg_rating)
+SELECT 'TEACHER', c.teacher_id, SUM(r.rating), COUNT(*),
+       COUNT(*) FILTER (WHERE r.rating = 1), COUNT(*) FILTER (WHERE r.rating = 2),
+       COUNT(*) FILTER (WHERE r.rating = 3), COUNT(*) FILTER (WHERE r.rating = 4),
+       COUNT(*) FILTER (WHERE r.rating = 5), AVG(r.rating)
+FROM reviews r
+JOIN courses c ON c.id = r.course_id
+WHERE c.teacher_id IS NOT NULL
+GROUP BY c.teacher_id
+ON CONFLICT (target_type, target_id) DO UPDATE
+SET rating_sum = EXCLUDED.rating_sum, review_count = EXCLUDED.review_count,
+    star1_count = EXCLUDED.star1_count, star2_count = EXCLUDED.star2_count, star3_count = EXCLUDED.star3_count,
+    star4_count = EXCLUDED.star4_count, star5_count = EXCLUDED.star5_count, avg_rating = EXCLUDED.avg_rating;
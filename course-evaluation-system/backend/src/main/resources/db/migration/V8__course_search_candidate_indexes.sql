@@ -0,0 +1,8 @@
+-- 课程检索先按得分的主要来源依次取有限的候选（代码精确匹配、名称包含、整词匹配、检索文本包含），
+-- 再只对候选计算排名；前两级候选需要各自的索引，否则关键词较少见时要整表扫描
+
+-- lower(code) = lower(关键词)（CourseRepository.searchRanked）
+CREATE INDEX IF NOT EXISTS idx_courses_code_lower ON courses (lower(code));
+
+-- name ILIKE '%关键词%'；课程名较短，GiST签名足够精确，位图扫描比同样条件下的GIN快数倍
+CREATE INDEX IF NOT EXISTS idx_courses_name_trgm ON courses USING GIST (name gist_trgm_ops);
@@ -1,4 +1,5 @@
 -- 使用MySQL语法创建表
+-- PostgreSQL表结构以 db/migration 下的Flyway迁移脚本为准
 
 -- 用户表
 CREATE TABLE IF NOT EXISTS `users` (
@@ -11,6 +12,7 @@ CREATE TABLE IF NOT EXISTS `users` (
   `active` BOOLEAN NOT NULL DEFAULT TRUE,
   `role` ENUM('ROLE_ADMIN', 'ROLE_MODERATOR', 'ROLE_STUDENT') NOT NULL,
   `can_comment` BOOLEAN NOT NULL DEFAULT TRUE,
+  `token_version` INT NOT NULL DEFAULT 0,
   `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   `updated_at` TIMESTAMP NULL DEFAULT NULL ON UPDATE CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`)
@@ -33,7 +35,9 @@ CREATE TABLE IF NOT EXISTS `teachers` (
   `bio` TEXT,
   `faculty_id` BIGINT,
   PRIMARY KEY (`id`),
-  FOREIGN KEY (`faculty_id`) REFERENCES `faculties` (`id`) ON DELETE SET NULL
+  FOREIGN KEY (`faculty_id`) REFERENCES `faculties` (`id`) ON DELETE SET NULL,
+  KEY `idx_teachers_faculty` (`faculty_id`),
+  KEY `idx_teachers_name` (`name`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- 课程表
@@ -47,9 +51,13 @@ CREATE TABLE IF NOT EXISTS `courses` (
   `assessment_criteria` TEXT,
   `faculty_id` BIGINT NOT NULL,
   `teacher_id` BIGINT,
+  `search_text` TEXT,
   PRIMARY KEY (`id`),
   FOREIGN KEY (`faculty_id`) REFERENCES `faculties` (`id`),
-  FOREIGN KEY (`teacher_id`) REFERENCES `teachers` (`id`) ON DELETE SET NULL
+  FOREIGN KEY (`teacher_id`) REFERENCES `teachers` (`id`) ON DELETE SET NULL,
+  KEY `idx_courses_faculty` (`faculty_id`, `id`),
+  KEY `idx_courses_teacher` (`teacher_id`, `id`),
+  KEY `idx_courses_type` (`type`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- 评价表
@@ -66,5 +74,53 @@ CREATE TABLE IF NOT EXISTS `reviews` (
   `course_id` BIGINT NOT NULL,
   PRIMARY KEY (`id`),
   FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE,
-  FOREIGN KEY (`course_id`) REFERENCES `courses` (`id`) ON DELETE CASCADE
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4; 
\ No newline at end of file
+  FOREIGN KEY (`course_id`) REFERENCES `courses` (`id`) ON DELETE CASCADE,
+  KEY `idx_reviews_course_feed` (`course_id`, `pinned` DESC, `created_at` DESC, `id` DESC),
+  KEY `idx_reviews_user_course` (`user_id`, `course_id`),
+  KEY `idx_reviews_course_rating` (`course_id`, `rating`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4; 
+
+-- 评分聚合表（按课程/教师增量维护评分统计）
+CREATE TABLE IF NOT EXISTS `rating_aggregates` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `target_type` VARCHAR(20) NOT NULL,
+  `target_id` BIGINT NOT NULL,
+  `rating_sum` BIGINT NOT NULL DEFAULT 0,
+  `review_count` BIGINT NOT NULL DEFAULT 0,
+  `star1_count` BIGINT NOT NULL DEFAULT 0,
+  `star2_count` BIGINT NOT NULL DEFAULT 0,
+  `star3_count` BIGINT NOT NULL DEFAULT 0,
+  `star4_count` BIGINT NOT NULL DEFAULT 0,
+  `star5_count` BIGINT NOT NULL DEFAULT 0,
+  `avg_rating` DOUBLE NOT NULL DEFAULT 0,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_rating_aggregates_target` (`target_type`, `target_id`),
+  KEY `idx_rating_aggregates_avg` (`target_type`, `avg_rating`, `target_id`),
+  KEY `idx_rating_aggregates_review_count` (`target_type`, `review_count`, `target_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 敏感词表
+CREATE TABLE IF NOT EXISTS `sensitive_words` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `word` VARCHAR(100) NOT NULL UNIQUE,
+  `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- 发件箱表（邮件与业务操作同事务写入，由后台任务投递）
+CREATE TABLE IF NOT EXISTS `email_outbox` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `recipient` VARCHAR(100) NOT NULL,
+  `subject` VARCHAR(200) NOT NULL,
+  `body` TEXT NOT NULL,
+  `dedupe_key` VARCHAR(150),
+  `status` VARCHAR(20) NOT NULL,
+  `attempts` INT NOT NULL DEFAULT 0,
+  `next_attempt_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `sent_at` TIMESTAMP NULL DEFAULT NULL,
+  `last_error` VARCHAR(500),
+  PRIMARY KEY (`id`),
+  KEY `idx_email_outbox_pending` (`status`, `next_attempt_at`),
+  KEY `idx_email_outbox_dedupe` (`dedupe_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,193 @@
+package com.must.courseevaluation;
+
+import com.must.courseevaluation.model.User;
+import com.must.courseevaluation.repository.UserRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录密码校验的吞吐量和过载行为，默认不运行：
+ * mvn test -Dtest=LoginThroughputBenchmarkTest -Dlogin.benchmark=true
+ *   [-Dlogin.benchmark.seconds=20] [-Dlogin.benchmark.verify-threads=CPU核数]
+ *   [-Dlogin.benchmark.queue-capacity=20] [-Dlogin.benchmark.overload-clients=200]
+ * 在内嵌PostgreSQL上启动完整应用（真实Tomcat、AuthController和passwordHashExecutor，BCrypt工作因子与配置文件相同），
+ * 先以与校验线程数相同的并发闭环登录，输出每秒登录数、每核每秒登录数和p50/p99；
+ * 再以远超线程数加队列容量的并发登录，输出成功和503的数量以及503的响应时间：
+ * 队列满后AbortPolicy立即拒绝，应快速返回带Retry-After的503，而不是让请求排队到超时。
+ * 过载阶段使用较小的队列容量，以免排队的请求在测量时间内来不及完成；结果只用于观察量级，不作为断言。
+ */
+@EnabledIfSystemProperty(named = "login.benchmark", matches = "true")
+class LoginThroughputBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginThroughputBenchmarkTest.class);
+
+    private static final String JWT_SECRET = Base64.getEncoder().encodeToString(new byte[64]);
+    private static final String USERNAME = "loadtest";
+    private static final String PASSWORD = "LoadTest123";
+
+    private final int seconds = Integer.getInteger("login.benchmark.seconds", 20);
+    private final int verifyThreads = Integer.getInteger("login.benchmark.verify-threads",
+            Runtime.getRuntime().availableProcessors());
+    private final int queueCapacity = Integer.getInteger("login.benchmark.queue-capacity", 20);
+    private final int overloadClients = Integer.getInteger("login.benchmark.overload-clients", 200);
+
+    @Test
+    void measureLoginThroughputAndSaturation() throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start();
+             ConfigurableApplicationContext context = start(postgres.getJdbcUrl("postgres", "postgres"))) {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setEmail(USERNAME + "@must.edu.mo");
+            user.setPassword(context.getBean(PasswordEncoder.class).encode(PASSWORD));
+            context.getBean(UserRepository.class).save(user);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/api/auth/login");
+            int cores = Runtime.getRuntime().availableProcessors();
+
+            // 预热JIT，同时确认登录能成功
+            run(uri, verifyThreads, Math.max(5, seconds / 4));
+            Result steady = run(uri, verifyThreads, seconds);
+            Result overload = run(uri, overloadClients, seconds);
+            logger.info("登录吞吐量（{}核, 校验线程{}, 队列容量{}, 测量{}秒）:\n  {}\n  {}", cores, verifyThreads,
+                    queueCapacity, seconds,
+                    String.format("%d并发: %.1f 次登录/秒, 每核 %.1f 次/秒, p50 %.0f ms, p99 %.0f ms, 503 %d, 其他失败 %d",
+                            verifyThreads, steady.throughput(), steady.throughput() / cores, steady.p50(),
+                            steady.p99(), steady.rejected(), steady.failures()),
+                    String.format("%d并发: %.1f 次登录/秒, 成功p99 %.0f ms, 503 %d（p50 %.1f ms, p99 %.1f ms, 缺少Retry-After %d）, 其他失败 %d",
+                            overloadClients, overload.throughput(), overload.p99(), overload.rejected(),
+                            overload.rejectedP50(), overload.rejectedP99(), overload.missingRetryAfter(),
+                            overload.failures()));
+        }
+    }
+
+    private ConfigurableApplicationContext start(String jdbcUrl) {
+        return new SpringApplicationBuilder(CourseEvaluationApplication.class)
+                // 不需要订阅缓存失效广播，去掉订阅容器后应用可在没有Redis的环境启动，登录接口本身不读写Redis
+                .initializers(context -> context.addBeanFactoryPostProcessor(beanFactory ->
+                        ((BeanDefinitionRegistry) beanFactory).removeBeanDefinition("cacheInvalidationListenerContainer")))
+                // 以命令行参数传入，优先于 application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + jdbcUrl,
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--password-hashing.verify-threads=" + verifyThreads,
+                        "--password-hashing.verify-queue-capacity=" + queueCapacity,
+                        // 配置文件中的密钥和邮件服务器是占位值
+                        "--jwt.secret=" + JWT_SECRET,
+                        "--spring.mail.host=localhost",
+                        "--spring.mail.port=25",
+                        // 测的是密码校验本身，不经过登录接口的限流
+                        "--rate-limit.enabled=false",
+                        // 默认的SQL输出和DEBUG日志会让测到的主要是日志开销
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate=WARN",
+                        "--logging.level.com.must=ERROR",
+                        "--logging.level.com.must.courseevaluation.LoginThroughputBenchmarkTest=INFO");
+    }
+
+    private Result run(URI uri, int clients, int seconds) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(120))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong failures = new AtomicLong();
+        AtomicLong missingRetryAfter = new AtomicLong();
+
+        List<Future<long[][]>> workers = new ArrayList<>(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] succeeded = new long[64];
+                    long[] rejected = new long[64];
+                    int succeededCount = 0;
+                    int rejectedCount = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response;
+                        try {
+                            response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            continue;
+                        }
+                        long elapsed = System.nanoTime() - start;
+                        if (response.statusCode() == 200) {
+                            if (succeededCount == succeeded.length) {
+                                succeeded = Arrays.copyOf(succeeded, succeededCount * 2);
+                            }
+                            succeeded[succeededCount++] = elapsed;
+                        } else if (response.statusCode() == 503) {
+                            if (response.headers().firstValue("Retry-After").isEmpty()) {
+                                missingRetryAfter.incrementAndGet();
+                            }
+                            if (rejectedCount == rejected.length) {
+                                rejected = Arrays.copyOf(rejected, rejectedCount * 2);
+                            }
+                            rejected[rejectedCount++] = elapsed;
+                            // 按Retry-After的意图稍后重试，避免客户端空转占满CPU
+                            Thread.sleep(100);
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return new long[][]{Arrays.copyOf(succeeded, succeededCount), Arrays.copyOf(rejected, rejectedCount)};
+                }));
+            }
+        }
+
+        List<long[][]> samples = workers.stream().map(LoginThroughputBenchmarkTest::join).toList();
+        long[] succeeded = samples.stream().flatMapToLong(sample -> Arrays.stream(sample[0])).sorted().toArray();
+        long[] rejected = samples.stream().flatMapToLong(sample -> Arrays.stream(sample[1])).sorted().toArray();
+        return new Result((double) succeeded.length / seconds, percentile(succeeded, 0.5), percentile(succeeded, 0.99),
+                rejected.length, percentile(rejected, 0.5), percentile(rejected, 0.99), missingRetryAfter.get(),
+                failures.get());
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted.length > 0 ? sorted[(int) (sorted.length * fraction)] / 1_000_000.0 : 0;
+    }
+
+    private static long[][] join(Future<long[][]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Result(double throughput, double p50, double p99, long rejected, double rejectedP50,
+                          double rejectedP99, long missingRetryAfter, long failures) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.must.courseevaluation;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 平台线程与虚拟线程模式的HTTP负载对比，默认不运行：
+ * mvn test -Dtest=ThreadModeLoadBenchmarkTest -Dload.benchmark=true
+ *   [-Dload.benchmark.concurrency=400] [-Dload.benchmark.seconds=20] [-Dload.benchmark.think-ms=0]
+ *   [-Dload.benchmark.warmup-seconds=10] [-Dload.benchmark.rounds=2]
+ * 在同一个内嵌PostgreSQL上依次以 spring.threads.virtual.enabled=false/true 启动完整应用（真实Tomcat），
+ * 由固定数量的并发客户端闭环请求课程目录（按最低评分过滤，分页查询和总数都走数据库，不经Redis），
+ * 输出每种模式的吞吐量、p50/p99和失败数。
+ * 客户端与服务端在同一台机器上争用CPU，结果只用于比较两种模式，不作为断言。
+ */
+@EnabledIfSystemProperty(named = "load.benchmark", matches = "true")
+class ThreadModeLoadBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadModeLoadBenchmarkTest.class);
+
+    private static final int COURSES = 5_000;
+    private static final String JWT_SECRET = Base64.getEncoder().encodeToString(new byte[64]);
+
+    private final int concurrency = Integer.getInteger("load.benchmark.concurrency", 400);
+    private final int seconds = Integer.getInteger("load.benchmark.seconds", 20);
+    private final int warmupSeconds = Integer.getInteger("load.benchmark.warmup-seconds", 10);
+    private final long thinkMs = Long.getLong("load.benchmark.think-ms", 0);
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        int rounds = Integer.getInteger("load.benchmark.rounds", 2);
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            List<String> results = new ArrayList<>();
+            // 两种模式在同一个JVM中交替运行多轮：先运行的模式承担更多的JIT预热，只跑一轮时先后顺序会造成偏差
+            for (int round = 1; round <= rounds; round++) {
+                results.add(measure(postgres, round, false));
+                results.add(measure(postgres, round, true));
+            }
+            logger.info("课程目录负载对比（{}并发, 预热{}秒, 测量{}秒, 思考时间{} ms）:\n  {}",
+                    concurrency, warmupSeconds, seconds, thinkMs, String.join("\n  ", results));
+        }
+    }
+
+    private String measure(EmbeddedPostgres postgres, int round, boolean virtual) throws Exception {
+        // 每次启动使用新建的库：启动时的初始用户数据不能在同一个库上重复创建
+        String database = "load_" + (virtual ? "virtual_" : "platform_") + round;
+        new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE DATABASE " + database);
+        try (ConfigurableApplicationContext context = start(postgres.getJdbcUrl("postgres", database), virtual)) {
+            seed(context.getBean(JdbcTemplate.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/api/courses/catalog?minRating=0&size=20");
+            run(uri, warmupSeconds);
+            Result result = run(uri, seconds);
+            return String.format("第%d轮 %s线程: %.1f req/s, p50 %.1f ms, p99 %.1f ms, 失败 %d", round,
+                    virtual ? "虚拟" : "平台", result.throughput(), result.p50(), result.p99(), result.failures());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String jdbcUrl, boolean virtual) {
+        return new SpringApplicationBuilder(CourseEvaluationApplication.class)
+                // 单节点压测不需要订阅缓存失效广播，去掉订阅容器后应用可在没有Redis的环境启动，压测的接口本身不读写Redis
+                .initializers(context -> context.addBeanFactoryPostProcessor(beanFactory ->
+                        ((BeanDefinitionRegistry) beanFactory).removeBeanDefinition("cacheInvalidationListenerContainer")))
+                // 以命令行参数传入，优先于 application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + jdbcUrl,
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        // 配置文件中的密钥和邮件服务器是占位值
+                        "--jwt.secret=" + JWT_SECRET,
+                        "--spring.mail.host=localhost",
+                        "--spring.mail.port=25",
+                        // 压测的是匿名读接口，不经过限流器
+                        "--rate-limit.enabled=false",
+                        // 默认的SQL输出和DEBUG日志会让测到的主要是日志开销
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate=WARN",
+                        "--logging.level.com.must=WARN",
+                        "--logging.level.com.must.courseevaluation.ThreadModeLoadBenchmarkTest=INFO");
+    }
+
+    /**
+     * 课程分布在20个院系，每门课程有聚合行，平均分分散在0到5之间
+     */
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO faculties (name) SELECT 'Load Faculty ' || g FROM generate_series(1, 20) g");
+        jdbcTemplate.update("""
+                INSERT INTO courses (code, name, type, faculty_id, search_text)
+                SELECT 'LOAD' || g, 'Load Course ' || g, 'ELECTIVE',
+                       (SELECT min(id) FROM faculties) + g % 20, 'LOAD' || g || ' Load Course ' || g
+                FROM generate_series(1, ?) g
+                """, COURSES);
+        jdbcTemplate.update("""
+                INSERT INTO rating_aggregates (target_type, target_id, rating_sum, review_count, avg_rating)
+                SELECT 'COURSE', id, (id % 5 + 1) * 10, 10, (id % 5 + 1)::double precision FROM courses
+                ON CONFLICT (target_type, target_id) DO NOTHING
+                """);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private Result run(URI uri, int seconds) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong failures = new AtomicLong();
+
+        List<Future<long[]>> workers = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = System.nanoTime() - start;
+                        if (thinkMs > 0) {
+                            Thread.sleep(thinkMs);
+                        }
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+        }
+
+        long[] all = workers.stream().map(ThreadModeLoadBenchmarkTest::join).flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(all);
+        double p50 = all.length > 0 ? all[all.length / 2] / 1_000_000.0 : 0;
+        double p99 = all.length > 0 ? all[(int) (all.length * 0.99)] / 1_000_000.0 : 0;
+        return new Result((double) all.length / seconds, p50, p99, failures.get());
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Result(double throughput, double p50, double p99, long failures) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.must.courseevaluation.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 已有数据库（早期由Hibernate建表，缺少后来加入的列）在版本0建立基线后执行全部迁移，
+ * 结果的列应与全新数据库一致，已有行按默认值回填，评分聚合按已有评价回填
+ */
+class BaselineMigrationTest {
+
+    private static final String COLUMNS = "SELECT table_name || '.' || column_name FROM information_schema.columns " +
+            "WHERE table_schema = 'public' AND table_name <> 'flyway_schema_history' ORDER BY 1";
+
+    private static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void start() throws IOException {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void legacySchemaIsReconciledWithFreshSchema() {
+        JdbcTemplate admin = new JdbcTemplate(postgres.getPostgresDatabase());
+        admin.execute("CREATE DATABASE fresh");
+        admin.execute("CREATE DATABASE legacy");
+        DataSource fresh = postgres.getDatabase("postgres", "fresh");
+        DataSource legacy = postgres.getDatabase("postgres", "legacy");
+        JdbcTemplate legacyJdbc = new JdbcTemplate(legacy);
+        createLegacySchema(legacyJdbc);
+
+        migrate(fresh);
+        migrate(legacy);
+
+        List<String> freshColumns = new JdbcTemplate(fresh).queryForList(COLUMNS, String.class);
+        assertThat(legacyJdbc.queryForList(COLUMNS, String.class)).containsExactlyElementsOf(freshColumns);
+
+        Map<String, Object> user = legacyJdbc.queryForMap("SELECT can_comment, token_version FROM users WHERE id = 1");
+        assertThat(user).containsEntry("can_comment", true).containsEntry("token_version", 0);
+        Map<String, Object> review = legacyJdbc.queryForMap("SELECT status, pinned FROM reviews WHERE id = 1");
+        assertThat(review).containsEntry("status", "APPROVED").containsEntry("pinned", false);
+    }
+
+    @Test
+    void legacyReviewsAreBackfilledIntoRatingAggregates() {
+        new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE DATABASE legacy_ratings");
+        DataSource legacy = postgres.getDatabase("postgres", "legacy_ratings");
+        JdbcTemplate legacyJdbc = new JdbcTemplate(legacy);
+        createLegacySchema(legacyJdbc);
+
+        migrate(legacy);
+
+        Map<String, Object> course = legacyJdbc.queryForMap("SELECT rating_sum, review_count, star1_count, " +
+                "star3_count, star4_count, star5_count, avg_rating FROM rating_aggregates " +
+                "WHERE target_type = 'COURSE' AND target_id = 1");
+        assertThat(course).containsEntry("rating_sum", 12L).containsEntry("review_count", 3L)
+                .containsEntry("star1_count", 0L).containsEntry("star3_count", 1L)
+                .containsEntry("star4_count", 1L).containsEntry("star5_count", 1L)
+                .containsEntry("avg_rating", 4.0);
+        Map<String, Object> teacher = legacyJdbc.queryForMap("SELECT rating_sum, review_count, avg_rating " +
+                "FROM rating_aggregates WHERE target_type = 'TEACHER' AND target_id = 1");
+        assertThat(teacher).containsEntry("rating_sum", 12L).containsEntry("review_count", 3L)
+                .containsEntry("avg_rating", 4.0);
+        // 没有评价的课程也有聚合行，计数为零
+        Map<String, Object> unrated = legacyJdbc.queryForMap("SELECT review_count, avg_rating FROM rating_aggregates " +
+                "WHERE target_type = 'COURSE' AND target_id = 2");
+        assertThat(unrated).containsEntry("review_count", 0L).containsEntry("avg_rating", 0.0);
+    }
+
+    private static void migrate(DataSource dataSource) {
+        // 与 application.properties 中的Flyway配置一致
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+
+    /**
+     * 早期版本的表：用户缺少发言权限和令牌版本，教师缺少简介，课程缺少考核标准，评价缺少审核状态和置顶，
+     * 没有评分聚合表；课程CS101已有三条评价，CS102没有评价
+     */
+    private static void createLegacySchema(JdbcTemplate jdbc) {
+        jdbc.execute("""
+                CREATE TABLE users (
+                    id BIGSERIAL PRIMARY KEY,
+                    username VARCHAR(50) NOT NULL UNIQUE,
+                    password VARCHAR(255) NOT NULL,
+                    email VARCHAR(100) NOT NULL UNIQUE,
+                    full_name VARCHAR(100),
+                    student_id VARCHAR(50) UNIQUE,
+                    active BOOLEAN NOT NULL,
+                    role VARCHAR(20) NOT NULL,
+                    created_at TIMESTAMP NOT NULL,
+                    updated_at TIMESTAMP
+                );
+                CREATE TABLE faculties (
+                    id BIGSERIAL PRIMARY KEY,
+                    name VARCHAR(100) NOT NULL UNIQUE,
+                    description TEXT
+                );
+                CREATE TABLE teachers (
+                    id BIGSERIAL PRIMARY KEY,
+                    name VARCHAR(100) NOT NULL,
+                    title VARCHAR(50),
+                    email VARCHAR(100),
+                    faculty_id BIGINT REFERENCES faculties (id)
+                );
+                CREATE TABLE courses (
+                    id BIGSERIAL PRIMARY KEY,
+                    code VARCHAR(20) NOT NULL UNIQUE,
+                    name VARCHAR(100) NOT NULL,
+                    credits DOUBLE PRECISION NOT NULL,
+                    description TEXT,
+                    type VARCHAR(20) NOT NULL,
+                    faculty_id BIGINT NOT NULL REFERENCES faculties (id),
+                    teacher_id BIGINT REFERENCES teachers (id)
+                );
+                CREATE TABLE reviews (
+                    id BIGSERIAL PRIMARY KEY,
+                    content TEXT NOT NULL,
+                    rating INT NOT NULL,
+                    anonymous BOOLEAN NOT NULL,
+                    created_at TIMESTAMP NOT NULL,
+                    updated_at TIMESTAMP,
+                    user_id BIGINT NOT NULL REFERENCES users (id),
+                    course_id BIGINT NOT NULL REFERENCES courses (id)
+                );
+                INSERT INTO users (username, password, email, active, role, created_at) VALUES
+                    ('alice', 'hash', 'alice@must.edu.mo', TRUE, 'ROLE_STUDENT', now()),
+                    ('bob', 'hash', 'bob@must.edu.mo', TRUE, 'ROLE_STUDENT', now()),
+                    ('carol', 'hash', 'carol@must.edu.mo', TRUE, 'ROLE_STUDENT', now());
+                INSERT INTO faculties (name) VALUES ('Faculty of Information Technology');
+                INSERT INTO teachers (name, faculty_id) VALUES ('Dr. Chan', 1);
+                INSERT INTO courses (code, name, credits, type, faculty_id, teacher_id) VALUES
+                    ('CS101', 'Programming', 3.0, 'COMPULSORY', 1, 1),
+                    ('CS102', 'Data Structures', 3.0, 'COMPULSORY', 1, 1);
+                INSERT INTO reviews (content, rating, anonymous, created_at, user_id, course_id) VALUES
+                    ('Good', 5, FALSE, now(), 1, 1),
+                    ('Fine', 4, FALSE, now(), 2, 1),
+                    ('Okay', 3, TRUE, now(), 3, 1);
+                """);
+    }
+}
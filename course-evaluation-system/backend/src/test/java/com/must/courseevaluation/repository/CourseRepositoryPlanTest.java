@@ -0,0 +1,118 @@
+package com.must.courseevaluation.repository;
+
+import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.model.Faculty;
+import com.must.courseevaluation.model.Teacher;
+import com.must.courseevaluation.support.QueryPlans;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CourseRepository每条查询的执行计划：按代码、院系、教师、类型、ID取课程都应由索引定位，
+ * 带评分的列表经唯一约束的索引关联聚合行，检索的各级候选都由索引筛选
+ */
+@DataJpaTest(showSql = false, properties = QueryPlans.INSPECTOR_PROPERTY)
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+class CourseRepositoryPlanTest {
+
+    private static final String NO_COURSE_SCAN = "Seq Scan on courses";
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Faculty faculty;
+    private Teacher teacher;
+    private List<Long> courseIds;
+
+    /**
+     * 2000门课程分布在50个院系、50位教师之下并收集统计信息，使计划器的选择率估计接近实际规模；
+     * 数据过少时计划器会整表读取聚合行再逐行过滤，无法反映索引是否可用
+     */
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO faculties (name) SELECT 'Faculty ' || g FROM generate_series(1, 50) g");
+        jdbcTemplate.update("INSERT INTO teachers (name, faculty_id) SELECT 'Teacher ' || id, id FROM faculties");
+        jdbcTemplate.update("INSERT INTO courses (code, name, type, faculty_id, teacher_id, search_text) " +
+                "SELECT 'C' || g, 'Course ' || g, CASE WHEN g % 2 = 0 THEN 'ELECTIVE' ELSE 'COMPULSORY' END, " +
+                "(SELECT min(id) FROM faculties) + g % 50, (SELECT min(id) FROM teachers) + g % 50, " +
+                "'C' || g || ' Course ' || g FROM generate_series(1, 2000) g");
+        jdbcTemplate.update("INSERT INTO rating_aggregates (target_type, target_id) SELECT 'COURSE', id FROM courses");
+        jdbcTemplate.execute("ANALYZE");
+        faculty = entityManager.find(Faculty.class, jdbcTemplate.queryForObject("SELECT min(id) FROM faculties", Long.class));
+        teacher = entityManager.find(Teacher.class, jdbcTemplate.queryForObject("SELECT min(id) FROM teachers", Long.class));
+        courseIds = jdbcTemplate.queryForList("SELECT id FROM courses ORDER BY id LIMIT 3", Long.class);
+    }
+
+    @Test
+    void lookupsByCodeUseUniqueIndex() {
+        assertThat(plan(() -> courseRepository.findByCode("C1"), "from courses"))
+                .contains("courses_code_key").doesNotContain(NO_COURSE_SCAN);
+        assertThat(plan(() -> courseRepository.existsByCode("C1"), "from courses"))
+                .contains("courses_code_key").doesNotContain(NO_COURSE_SCAN);
+    }
+
+    @Test
+    void filteredListsUseForeignKeyIndexes() {
+        assertThat(plan(() -> courseRepository.findByFaculty(faculty), "from courses"))
+                .contains("idx_courses_faculty").doesNotContain(NO_COURSE_SCAN);
+        assertThat(plan(() -> courseRepository.findByTeacher(teacher), "from courses"))
+                .contains("idx_courses_teacher").doesNotContain(NO_COURSE_SCAN);
+        assertThat(plan(() -> courseRepository.findByType(Course.CourseType.ELECTIVE), "from courses"))
+                .contains("idx_courses_type").doesNotContain(NO_COURSE_SCAN);
+        assertThat(plan(() -> courseRepository.findIdsByFacultyId(faculty.getId()), "from courses"))
+                .contains("idx_courses_faculty").doesNotContain(NO_COURSE_SCAN);
+        assertThat(plan(() -> courseRepository.findIdsByTeacherId(teacher.getId()), "from courses"))
+                .contains("idx_courses_teacher").doesNotContain(NO_COURSE_SCAN);
+    }
+
+    @Test
+    void listsWithRatingsJoinAggregateByUniqueIndex() {
+        assertThat(plan(() -> courseRepository.findByFacultyIdWithRatings(faculty.getId()), "from courses"))
+                .contains("idx_courses_faculty", "uk_rating_aggregates_target").doesNotContain(NO_COURSE_SCAN);
+        assertThat(plan(() -> courseRepository.findByTeacherIdWithRatings(teacher.getId()), "from courses"))
+                .contains("idx_courses_teacher", "uk_rating_aggregates_target").doesNotContain(NO_COURSE_SCAN);
+        assertThat(plan(() -> courseRepository.findByTypeWithRatings(Course.CourseType.ELECTIVE), "from courses"))
+                .contains("idx_courses_type", "uk_rating_aggregates_target").doesNotContain(NO_COURSE_SCAN);
+        // 全部课程本就读全表，只检查聚合行按索引关联
+        assertThat(plan(() -> courseRepository.findAllWithRatings(), "from courses"))
+                .contains("uk_rating_aggregates_target");
+    }
+
+    @Test
+    void searchUsesGinIndexes() {
+        String plan = plan(() -> courseRepository.searchRanked("course", "%course%", 100, 20, 0), "ts_rank_cd");
+
+        // 每一级候选都由索引定位，排名只读取候选行，本页的行按唯一索引关联聚合行
+        assertThat(plan).contains("idx_courses_code_lower", "idx_courses_name_trgm",
+                "idx_courses_search_vector", "idx_courses_search_trgm", "uk_rating_aggregates_target")
+                .doesNotContain(NO_COURSE_SCAN);
+    }
+
+    @Test
+    void searchTextRefreshUpdatesByPrimaryKey() {
+        assertThat(plan(() -> courseRepository.refreshSearchText(courseIds), "UPDATE courses"))
+                .contains("courses_pkey").doesNotContain(NO_COURSE_SCAN);
+    }
+
+    private String plan(Runnable call, String fragment) {
+        QueryPlans.clear();
+        call.run();
+        return QueryPlans.explain(jdbcTemplate, QueryPlans.lastStatementContaining(fragment));
+    }
+}
@@ -0,0 +1,144 @@
+package com.must.courseevaluation.repository;
+
+import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.model.Review;
+import com.must.courseevaluation.model.User;
+import com.must.courseevaluation.support.QueryPlans;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ReviewRepository每条查询的执行计划：按课程、用户、教师取评价时都应由索引定位，
+ * 评价列表的置顶段查询应直接按索引顺序返回而不排序
+ */
+@DataJpaTest(showSql = false, properties = QueryPlans.INSPECTOR_PROPERTY)
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+class ReviewRepositoryPlanTest {
+
+    private static final String NO_REVIEW_SCAN = "Seq Scan on reviews";
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Course course;
+    private Long teacherId;
+    private List<Long> reviewIds;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO faculties (name) VALUES ('Faculty of Information Technology')");
+        jdbcTemplate.update("INSERT INTO teachers (name, faculty_id) SELECT 'Dr. Chan', id FROM faculties");
+        jdbcTemplate.update("INSERT INTO courses (code, name, type, faculty_id, teacher_id) " +
+                "SELECT 'CS101', 'Programming', 'COMPULSORY', f.id, t.id FROM faculties f, teachers t");
+        jdbcTemplate.update("INSERT INTO users (username, password, email, role) " +
+                "VALUES ('alice', 'hash', 'alice@must.edu.mo', 'ROLE_STUDENT')");
+        jdbcTemplate.update("INSERT INTO reviews (content, rating, user_id, course_id) " +
+                "SELECT 'Review ' || g, 1 + g % 5, u.id, c.id FROM users u, courses c, generate_series(1, 3) g");
+        user = entityManager.find(User.class, jdbcTemplate.queryForObject("SELECT id FROM users", Long.class));
+        course = entityManager.find(Course.class, jdbcTemplate.queryForObject("SELECT id FROM courses", Long.class));
+        teacherId = course.getTeacher().getId();
+        reviewIds = jdbcTemplate.queryForList("SELECT id FROM reviews ORDER BY id", Long.class);
+    }
+
+    @Test
+    void courseQueriesUseCourseIndexes() {
+        assertThat(plan(() -> reviewRepository.findByCourse(course), "from reviews"))
+                .contains("idx_reviews_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.findByCourse(course, PageRequest.of(0, 10)), "fetch first"))
+                .contains("idx_reviews_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.findByCourseAndStatus(course, Review.ReviewStatus.APPROVED), "from reviews"))
+                .contains("idx_reviews_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.countRatingsByCourseId(course.getId()), "group by"))
+                .contains("idx_reviews_course_rating").doesNotContain(NO_REVIEW_SCAN);
+    }
+
+    @Test
+    void courseFeedIsReadInIndexOrder() {
+        assertThat(plan(() -> reviewRepository.findByCourseOrderByPinnedDescCreatedAtDescIdDesc(course), "order by"))
+                .contains("idx_reviews_course_feed").doesNotContain("Sort");
+        assertThat(plan(() -> reviewRepository.findCourseFeedSegment(course.getId(), false, PageRequest.of(0, 20)),
+                "order by"))
+                .contains("idx_reviews_course_feed").doesNotContain("Sort");
+        assertThat(plan(() -> reviewRepository.findCourseFeedSegmentAfter(course.getId(), false,
+                LocalDateTime.now(), Long.MAX_VALUE, PageRequest.of(0, 20)), "order by"))
+                .contains("idx_reviews_course_feed").doesNotContain("Sort");
+    }
+
+    @Test
+    void teacherQueriesGoThroughTeacherCourses() {
+        // 教师维度先经 idx_courses_teacher 找到课程，再按课程索引取评价；多门课程的结果需要合并排序，
+        // 计划器可选 idx_reviews_course_feed 或 idx_reviews_course_rating 定位
+        assertThat(plan(() -> reviewRepository.findByTeacherId(teacherId), "from reviews"))
+                .contains("idx_courses_teacher", "idx_reviews_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.findByTeacherIdAndStatus(teacherId, Review.ReviewStatus.APPROVED),
+                "from reviews"))
+                .contains("idx_courses_teacher", "idx_reviews_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.findByTeacherIdOrderByFeed(teacherId), "order by"))
+                .contains("idx_courses_teacher", "idx_reviews_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.findTeacherFeedSegment(teacherId, false, PageRequest.of(0, 20)),
+                "order by"))
+                .contains("idx_courses_teacher", "idx_reviews_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.findTeacherFeedSegmentAfter(teacherId, false,
+                LocalDateTime.now(), Long.MAX_VALUE, PageRequest.of(0, 20)), "order by"))
+                .contains("idx_courses_teacher", "idx_reviews_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.countRatingsByTeacherId(teacherId), "group by"))
+                .contains("idx_courses_teacher", "idx_reviews_course_rating").doesNotContain(NO_REVIEW_SCAN);
+    }
+
+    @Test
+    void userQueriesUseUserCourseIndex() {
+        assertThat(plan(() -> reviewRepository.findByUser(user), "from reviews"))
+                .contains("idx_reviews_user_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.findByUser(user, PageRequest.of(0, 10)), "fetch first"))
+                .contains("idx_reviews_user_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.existsByUserAndCourse(user, course), "from reviews"))
+                .contains("idx_reviews_user_course").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.findReviewedCourseAndTeacherIdsByUserId(user.getId()), "from reviews"))
+                .contains("idx_reviews_user_course").doesNotContain(NO_REVIEW_SCAN);
+    }
+
+    @Test
+    void bulkDeletionLocksAndDeletesByPrimaryKey() {
+        assertThat(plan(() -> reviewRepository.lockForDeletion(reviewIds), "FOR UPDATE"))
+                .contains("reviews_pkey").doesNotContain(NO_REVIEW_SCAN);
+        assertThat(plan(() -> reviewRepository.deleteByIdIn(reviewIds), "delete from reviews"))
+                .contains("reviews_pkey").doesNotContain(NO_REVIEW_SCAN);
+    }
+
+    @Test
+    void fullTableQueriesReadEachTableOnce() {
+        // 全量读取（管理端列表、聚合重建）本就需要读全表，这里只检查一条语句带出关联，
+        // 且按课程分组统计沿 idx_reviews_course_rating 的顺序分组而不排序（表经VACUUM后为Index Only Scan）
+        assertThat(plan(() -> reviewRepository.findAllWithUserAndCourse(), "from reviews"))
+                .contains("users", "courses");
+        assertThat(plan(() -> reviewRepository.countRatingsGroupedByCourse(), "group by"))
+                .contains("using idx_reviews_course_rating").doesNotContain("Sort");
+        assertThat(plan(() -> reviewRepository.countRatingsGroupedByTeacher(), "group by"))
+                .contains("idx_reviews_course_rating");
+    }
+
+    private String plan(Runnable call, String fragment) {
+        QueryPlans.clear();
+        call.run();
+        return QueryPlans.explain(jdbcTemplate, QueryPlans.lastStatementContaining(fragment));
+    }
+}
@@ -0,0 +1,61 @@
+package com.must.courseevaluation.repository;
+
+import com.must.courseevaluation.model.SensitiveWord;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 词表版本签名：热更新轮询依赖它发现词表的任何变化
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+class SensitiveWordRepositoryTest {
+
+    @Autowired
+    private SensitiveWordRepository sensitiveWordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void signatureChangesWhenWordIsEditedInPlace() {
+        saveWord("垃圾");
+        SensitiveWord edited = saveWord("废物");
+        String original = sensitiveWordRepository.findVersionSignature();
+
+        assertThat(sensitiveWordRepository.findVersionSignature()).isEqualTo(original);
+
+        // 词数和最大ID都不变，只改内容
+        jdbcTemplate.update("UPDATE sensitive_words SET word = ? WHERE id = ?", "混蛋", edited.getId());
+        String changed = sensitiveWordRepository.findVersionSignature();
+        assertThat(changed).isNotEqualTo(original);
+
+        jdbcTemplate.update("UPDATE sensitive_words SET word = ? WHERE id = ?", "废物", edited.getId());
+        assertThat(sensitiveWordRepository.findVersionSignature()).isEqualTo(original);
+    }
+
+    @Test
+    void signatureChangesWhenWordIsAddedOrDeleted() {
+        String empty = sensitiveWordRepository.findVersionSignature();
+        SensitiveWord word = saveWord("垃圾");
+        String oneWord = sensitiveWordRepository.findVersionSignature();
+
+        assertThat(oneWord).isNotEqualTo(empty);
+
+        sensitiveWordRepository.delete(word);
+        sensitiveWordRepository.flush();
+        assertThat(sensitiveWordRepository.findVersionSignature()).isEqualTo(empty);
+    }
+
+    private SensitiveWord saveWord(String word) {
+        SensitiveWord sensitiveWord = new SensitiveWord();
+        sensitiveWord.setWord(word);
+        return sensitiveWordRepository.saveAndFlush(sensitiveWord);
+    }
+}
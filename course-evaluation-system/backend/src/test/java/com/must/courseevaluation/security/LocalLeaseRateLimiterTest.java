@@ -0,0 +1,75 @@
+package com.must.courseevaluation.security;
+
+import com.must.courseevaluation.config.RateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocalLeaseRateLimiterTest {
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final RedisRateLimiter redisRateLimiter = mock(RedisRateLimiter.class);
+    private LocalLeaseRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties.setLocalBatchSize(10);
+        properties.setLeaseTtl(Duration.ofSeconds(5));
+        limiter = new LocalLeaseRateLimiter(properties, redisRateLimiter);
+    }
+
+    @Test
+    void smallLimitGroupGoesToRedisForEveryRequest() {
+        // 5次/10分钟：租约期内恢复不到一个许可，不能一次预扣整个周期的额度
+        RateLimitProperties.Group group = group(5, Duration.ofMinutes(10));
+        when(redisRateLimiter.tryAcquire(eq("ip"), eq(group))).thenReturn(new RedisRateLimiter.Result(true, 4, 0));
+
+        limiter.tryAcquire("ip", group);
+        limiter.tryAcquire("ip", group);
+
+        verify(redisRateLimiter, times(2)).tryAcquire("ip", group);
+        verify(redisRateLimiter, never()).tryAcquire(any(), any(), anyInt());
+    }
+
+    @Test
+    void batchIsCappedByPermitsRefilledDuringLease() {
+        // 60次/分钟，租约5秒：每批5个
+        RateLimitProperties.Group group = group(60, Duration.ofMinutes(1));
+        when(redisRateLimiter.tryAcquire("ip", group, 5)).thenReturn(new RedisRateLimiter.Result(true, 55, 0));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("ip", group).isAllowed()).isTrue();
+        }
+
+        verify(redisRateLimiter, times(1)).tryAcquire("ip", group, 5);
+    }
+
+    @Test
+    void batchNeverExceedsConfiguredBatchSize() {
+        RateLimitProperties.Group group = group(6000, Duration.ofMinutes(1));
+        when(redisRateLimiter.tryAcquire("ip", group, 10)).thenReturn(new RedisRateLimiter.Result(true, 5990, 0));
+
+        limiter.tryAcquire("ip", group);
+
+        verify(redisRateLimiter).tryAcquire("ip", group, 10);
+    }
+
+    private RateLimitProperties.Group group(int limit, Duration period) {
+        RateLimitProperties.Group group = new RateLimitProperties.Group();
+        group.setName("test");
+        group.setLimit(limit);
+        group.setPeriod(period);
+        return group;
+    }
+}
@@ -0,0 +1,81 @@
+package com.must.courseevaluation.security;
+
+import com.must.courseevaluation.service.CacheService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class UserDetailsCacheTest {
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    private final UserDetailsCache cache = new UserDetailsCache(stringRedisTemplate, 100, Duration.ofSeconds(60));
+
+    @Test
+    void evictBroadcastsToOtherNodes() {
+        cache.put(user(7L, "alice"));
+
+        cache.evict(7L, "alice");
+
+        assertThat(cache.getByUsername("alice")).isNull();
+        verify(stringRedisTemplate).convertAndSend(CacheService.INVALIDATION_CHANNEL, "user-details:7");
+    }
+
+    @Test
+    void evictInTransactionBroadcastsOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict(7L, "alice");
+            verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(stringRedisTemplate).convertAndSend(CacheService.INVALIDATION_CHANNEL, "user-details:7");
+    }
+
+    @Test
+    void broadcastEvictsEntryEvenWithoutIdIndex() {
+        // 另一个节点上ID索引可能已淘汰，按用户名缓存的条目（含密码哈希）仍要清除
+        cache.put(user(7L, "alice"));
+        cache.put(user(8L, "bob"));
+
+        cache.onMessage(message("user-details:7"), null);
+
+        assertThat(cache.getByUsername("alice")).isNull();
+        assertThat(cache.getById(7L)).isNull();
+        assertThat(cache.getByUsername("bob")).isNotNull();
+    }
+
+    @Test
+    void ignoresMessagesForOtherCaches() {
+        cache.put(user(7L, "alice"));
+
+        cache.onMessage(message("course:7"), null);
+
+        assertThat(cache.getByUsername("alice")).isNotNull();
+    }
+
+    private static UserDetailsImpl user(Long id, String username) {
+        return new UserDetailsImpl(id, username, username + "@must.edu.mo", "{bcrypt}hash", List.of(), true, true);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CacheService.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,123 @@
+package com.must.courseevaluation.security.jwt;
+
+import com.must.courseevaluation.model.User;
+import com.must.courseevaluation.repository.UserRepository;
+import com.must.courseevaluation.security.TokenVersionCache;
+import com.must.courseevaluation.security.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+
+/**
+ * 每个请求的JWT认证开销，改造前后对比，默认不运行：
+ * mvn test -Dtest=JwtAuthenticationBenchmarkTest -Djwt.benchmark=true [-Djwt.benchmark.seconds=3]
+ * 改造前：校验和取用户名各自解码密钥、构建解析器并完整解析一次令牌，再按用户名查库；
+ * 改造后：启动时构建的解析器只解析一次，用户信息取自令牌声明，令牌版本走TokenVersionCache。
+ * 分别测量只做令牌解析和完整认证（含用户信息）的每次耗时，用户表在内嵌PostgreSQL中。
+ * 结果只用于比较量级，不作为断言。
+ */
+@DataJpaTest(showSql = false, properties = {
+        "logging.level.org.hibernate=WARN",
+        JwtAuthenticationBenchmarkTest.SECRET_PROPERTY
+})
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import({JwtUtils.class, TokenVersionCache.class})
+@EnabledIfSystemProperty(named = "jwt.benchmark", matches = "true")
+class JwtAuthenticationBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationBenchmarkTest.class);
+
+    // 配置文件中的密钥是占位值，不是Base64
+    private static final String JWT_SECRET =
+            "YmVuY2htYXJrLW9ubHktc2lnbmluZy1rZXktMDAwMDAwMDAwMDAwMDAwMDAwMDAwMDAwMDAwMDAwMDAwMDAwMA==";
+    static final String SECRET_PROPERTY = "jwt.secret=" + JWT_SECRET;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void measurePerRequestAuthenticationCost() {
+        int seconds = Integer.getInteger("jwt.benchmark.seconds", 3);
+        User user = new User();
+        user.setUsername("alice");
+        user.setPassword("{bcrypt}hash");
+        user.setEmail("alice@must.edu.mo");
+        userRepository.saveAndFlush(user);
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        String token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        List<String> results = new ArrayList<>();
+        results.add(measure("改造前 令牌解析", seconds, token, t -> parseTwiceWithFreshParser(t).length()));
+        results.add(measure("改造后 令牌解析", seconds, token, t -> jwtUtils.parseValidatedClaims(t).getSubject().length()));
+        results.add(measure("改造前 完整认证", seconds, token, t -> userRepository.findByUsername(parseTwiceWithFreshParser(t))
+                .map(UserDetailsImpl::build)
+                .orElseThrow()
+                .getUsername()
+                .length()));
+        results.add(measure("改造后 完整认证", seconds, token, t -> {
+            Claims claims = jwtUtils.parseValidatedClaims(t);
+            UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+            return tokenVersionCache.isCurrent(userDetails.getId(), userDetails.getTokenVersion())
+                    ? userDetails.getUsername().length() : 0;
+        }));
+        logger.info("每个请求的JWT认证开销:\n  {}", String.join("\n  ", results));
+    }
+
+    /**
+     * 改造前 validateJwtToken + getUserNameFromJwtToken 的做法
+     */
+    private static String parseTwiceWithFreshParser(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET));
+        Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+
+        Key usernameKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET));
+        return Jwts.parserBuilder().setSigningKey(usernameKey).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    /**
+     * 先预热与测量同样的时长，再统计测量期间的调用次数；结果累加到校验和中，避免调用被JIT消除
+     */
+    private static String measure(String name, int seconds, String token, ToIntFunction<String> authenticate) {
+        run(seconds, token, authenticate);
+        long start = System.nanoTime();
+        long[] counts = run(seconds, token, authenticate);
+        long elapsed = System.nanoTime() - start;
+        return String.format("%s: %.1f µs/次, %.0f 次/秒 (校验和 %d)", name,
+                elapsed / 1_000.0 / counts[0], counts[0] * 1_000_000_000.0 / elapsed, counts[1]);
+    }
+
+    private static long[] run(int seconds, String token, ToIntFunction<String> authenticate) {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long calls = 0;
+        long checksum = 0;
+        while (System.nanoTime() < deadline) {
+            checksum += authenticate.applyAsInt(token);
+            calls++;
+        }
+        return new long[]{calls, checksum};
+    }
+}
@@ -0,0 +1,153 @@
+package com.must.courseevaluation.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用内存Map模拟Redis的键值读写，验证CacheService自身的读写顺序
+ */
+class CacheServiceTest {
+
+    private final Map<String, Object> redis = new ConcurrentHashMap<>();
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> stringOps;
+    private CacheService cacheService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> objectOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(objectOps);
+        when(objectOps.get(anyString())).thenAnswer(inv -> redis.get(inv.<String>getArgument(0)));
+        doAnswer(inv -> redis.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(objectOps).set(anyString(), any(), anyLong(), any());
+        when(redisTemplate.delete(anyString())).thenAnswer(inv -> redis.remove(inv.<String>getArgument(0)) != null);
+
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        stringOps = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(stringOps);
+        when(stringOps.get(anyString())).thenAnswer(inv -> {
+            Object value = redis.get(inv.<String>getArgument(0));
+            return value != null ? value.toString() : null;
+        });
+        when(stringOps.increment(anyString())).thenAnswer(inv ->
+                (Long) redis.merge(inv.getArgument(0), 1L, (a, b) -> (Long) a + (Long) b));
+
+        cacheService = new CacheService(1000, Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(cacheService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cacheService, "stringRedisTemplate", stringRedisTemplate);
+    }
+
+    @Test
+    void courseListIsServedFromCacheAfterFirstLoad() {
+        List<String> first = cacheService.getOrLoadCourseList("all", () -> List.of("a"));
+        List<String> second = cacheService.getOrLoadCourseList("all", () -> List.of("b"));
+
+        assertThat(first).containsExactly("a");
+        assertThat(second).containsExactly("a");
+    }
+
+    @Test
+    void listLoadedAcrossVersionBumpIsNotCachedUnderNewVersion() {
+        // 加载期间课程列表整体失效：加载结果基于旧数据，不能被新版本读到
+        List<String> stale = cacheService.getOrLoadCourseList("all", () -> {
+            cacheService.evictAllCourseLists();
+            return List.of("stale");
+        });
+        List<String> next = cacheService.getOrLoadCourseList("all", () -> List.of("fresh"));
+
+        assertThat(stale).containsExactly("stale");
+        assertThat(next).containsExactly("fresh");
+    }
+
+    @Test
+    void catalogCountLoadedAcrossVersionBumpIsNotCachedUnderNewVersion() {
+        long stale = cacheService.getOrLoadCatalogCount("f=null", () -> {
+            cacheService.evictCourseLists(List.of("all"));
+            return 1L;
+        });
+        long next = cacheService.getOrLoadCatalogCount("f=null", () -> 2L);
+
+        assertThat(stale).isEqualTo(1L);
+        assertThat(next).isEqualTo(2L);
+    }
+
+    @Test
+    void waitersAreReleasedWhenLoaderThrowsError() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch failLoader = new CountDownLatch(1);
+        Thread loaderThread = new Thread(() -> {
+            try {
+                cacheService.getOrLoadCourse(1L, () -> {
+                    loaderStarted.countDown();
+                    awaitQuietly(failLoader);
+                    throw new AssertionError("boom");
+                });
+            } catch (AssertionError expected) {
+                // 加载线程自身收到原始错误
+            }
+        });
+        loaderThread.start();
+        loaderStarted.await();
+
+        CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(
+                () -> cacheService.getOrLoadCourse(1L, () -> "unused"));
+        // 等待请求进入同一键的单飞等待后再让加载失败
+        Thread.sleep(200);
+        failLoader.countDown();
+
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(AssertionError.class);
+        loaderThread.join(5000);
+    }
+
+    @Test
+    void refreshReleasesOnlyItsOwnLock() {
+        redis.put("course:1", new CacheService.CacheEntry("old", 0, System.currentTimeMillis() - 1));
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        when(stringOps.setIfAbsent(eq("lock:course:1"), token.capture(), any(Duration.class))).thenReturn(true);
+
+        Object value = cacheService.getOrLoadCourse(1L, () -> "new");
+
+        assertThat(value).isEqualTo("new");
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("lock:course:1")), eq(token.getValue()));
+        verify(stringRedisTemplate, never()).delete(anyString());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.dto.AutocompleteSuggestionDto;
+import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.repository.CourseRepository;
+import com.must.courseevaluation.repository.FacultyRepository;
+import com.must.courseevaluation.repository.RatingAggregateRepository;
+import com.must.courseevaluation.repository.TeacherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 两个节点各自持有一份索引，通过模拟的失效频道同步
+ */
+class CatalogAutocompleteIndexTest {
+
+    private final CourseRepository courseRepository = mock(CourseRepository.class);
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    private CatalogAutocompleteIndex origin;
+    private CatalogAutocompleteIndex peer;
+
+    @BeforeEach
+    void setUp() {
+        origin = newIndex();
+        peer = newIndex();
+    }
+
+    @Test
+    void peerPicksUpCourseIndexedOnAnotherNode() {
+        Course course = course(5L, "数据库系统", "CS305");
+        when(courseRepository.findById(5L)).thenReturn(Optional.of(course));
+
+        origin.indexCourse(course);
+        peer.onMessage(message(publishedBody()), null);
+
+        assertThat(origin.suggest("数据库", 5)).extracting(AutocompleteSuggestionDto::getId).containsExactly(5L);
+        assertThat(peer.suggest("数据库", 5)).extracting(AutocompleteSuggestionDto::getId).containsExactly(5L);
+    }
+
+    @Test
+    void peerDropsCourseRemovedOnAnotherNode() {
+        Course course = course(5L, "数据库系统", "CS305");
+        when(courseRepository.findById(5L)).thenReturn(Optional.of(course));
+        origin.indexCourse(course);
+        peer.onMessage(message(publishedBody()), null);
+
+        when(courseRepository.findById(5L)).thenReturn(Optional.empty());
+        origin.removeCourse(5L);
+        peer.onMessage(message(lastPublishedBody()), null);
+
+        assertThat(peer.suggest("cs305", 5)).isEmpty();
+    }
+
+    @Test
+    void nodeIgnoresItsOwnBroadcast() {
+        origin.indexCourse(course(5L, "数据库系统", "CS305"));
+
+        origin.onMessage(message(publishedBody()), null);
+
+        verify(courseRepository, never()).findById(anyLong());
+    }
+
+    private String publishedBody() {
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(CacheService.INVALIDATION_CHANNEL), body.capture());
+        return body.getValue();
+    }
+
+    private String lastPublishedBody() {
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate, atLeastOnce())
+                .convertAndSend(eq(CacheService.INVALIDATION_CHANNEL), body.capture());
+        List<String> all = body.getAllValues();
+        return all.get(all.size() - 1);
+    }
+
+    private CatalogAutocompleteIndex newIndex() {
+        CatalogAutocompleteIndex index = new CatalogAutocompleteIndex();
+        ReflectionTestUtils.setField(index, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(index, "teacherRepository", mock(TeacherRepository.class));
+        ReflectionTestUtils.setField(index, "facultyRepository", mock(FacultyRepository.class));
+        ReflectionTestUtils.setField(index, "ratingAggregateRepository", mock(RatingAggregateRepository.class));
+        ReflectionTestUtils.setField(index, "stringRedisTemplate", stringRedisTemplate);
+        return index;
+    }
+
+    private static Course course(Long id, String name, String code) {
+        Course course = new Course();
+        course.setId(id);
+        course.setName(name);
+        course.setCode(code);
+        return course;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CacheService.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,128 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.dto.CatalogPageDto;
+import com.must.courseevaluation.dto.CourseCatalogQuery;
+import com.must.courseevaluation.dto.CourseDto;
+import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.model.Faculty;
+import com.must.courseevaluation.model.RatingAggregate;
+import com.must.courseevaluation.model.RatingAggregate.TargetType;
+import com.must.courseevaluation.support.QueryPlans;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 课程目录按存储的平均分、评价数排序和过滤：游标翻页的顺序，以及排序、过滤能由 rating_aggregates 的索引满足
+ */
+@DataJpaTest(showSql = false, properties = QueryPlans.INSPECTOR_PROPERTY)
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(CourseCatalogService.class)
+class CourseCatalogServiceTest {
+
+    @Autowired
+    private CourseCatalogService courseCatalogService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private CacheService cacheService;
+
+    private final List<Long> courseIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        Faculty faculty = new Faculty();
+        faculty.setName("Faculty of Information Technology");
+        entityManager.persist(faculty);
+        // 平均分：4.5、4.5、3.0、无评价（0）、5.0
+        int[][] ratings = {{5, 4}, {4, 5}, {3}, {}, {5}};
+        for (int i = 0; i < ratings.length; i++) {
+            Course course = new Course();
+            course.setCode("CS10" + i);
+            course.setName("Course " + i);
+            course.setType(Course.CourseType.ELECTIVE);
+            course.setFaculty(faculty);
+            entityManager.persist(course);
+            courseIds.add(course.getId());
+
+            RatingAggregate aggregate = new RatingAggregate(TargetType.COURSE, course.getId());
+            for (int rating : ratings[i]) {
+                aggregate.apply(rating, 1);
+            }
+            entityManager.persist(aggregate);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void ratingPagesFollowStoredAverageWithIdTiebreak() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CatalogPageDto<CourseDto> page = courseCatalogService.query(query("rating", null, cursor, 2));
+            page.getItems().forEach(item -> seen.add(item.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // 降序时相同平均分的课程按ID降序
+        assertThat(seen).containsExactly(courseIds.get(4), courseIds.get(1), courseIds.get(0),
+                courseIds.get(2), courseIds.get(3));
+    }
+
+    @Test
+    void minRatingFiltersOnStoredAverage() {
+        CatalogPageDto<CourseDto> page = courseCatalogService.query(query("rating", 4.5, null, 10));
+
+        assertThat(page.getItems()).extracting(CourseDto::getId)
+                .containsExactly(courseIds.get(4), courseIds.get(1), courseIds.get(0));
+        assertThat(page.getItems()).extracting(CourseDto::getAverageRating).containsExactly(5.0, 4.5, 4.5);
+    }
+
+    @Test
+    void ratingSortAndFilterUseAverageIndex() {
+        QueryPlans.clear();
+        CatalogPageDto<CourseDto> first = courseCatalogService.query(query("rating", 3.0, null, 2));
+        courseCatalogService.query(query("rating", 3.0, first.getNextCursor(), 2));
+
+        String plan = QueryPlans.explain(jdbcTemplate, QueryPlans.lastStatementContaining("order by"));
+
+        assertThat(plan).contains("idx_rating_aggregates_avg").doesNotContain("Sort");
+    }
+
+    @Test
+    void reviewCountSortUsesReviewCountIndex() {
+        QueryPlans.clear();
+        courseCatalogService.query(query("reviews", null, null, 2));
+
+        String plan = QueryPlans.explain(jdbcTemplate, QueryPlans.lastStatementContaining("order by"));
+
+        assertThat(plan).contains("idx_rating_aggregates_review_count").doesNotContain("Sort");
+    }
+
+    private static CourseCatalogQuery query(String sort, Double minRating, String cursor, int size) {
+        CourseCatalogQuery query = new CourseCatalogQuery();
+        query.setSort(sort);
+        query.setMinRating(minRating);
+        query.setCursor(cursor);
+        query.setSize(size);
+        return query;
+    }
+}
@@ -0,0 +1,186 @@
+package com.must.courseevaluation.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.must.courseevaluation.model.EmailOutbox;
+import com.must.courseevaluation.repository.EmailOutboxRepository;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 发件箱投递：在内嵌PostgreSQL和GreenMail上验证投递、去重合并、发送期间不持锁以及失败重试
+ */
+@DataJpaTest(properties = {
+        "spring.mail.username=noreply@example.com",
+        "email.outbox.batch-size=10",
+        "email.outbox.retry-base-delay=30s"
+})
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import({EmailOutboxService.class, EmailOutboxServiceTest.MailConfig.class})
+// 服务自己管理事务，测试方法不能包在回滚事务里
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxServiceTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private HookedMailSender mailSender;
+
+    @AfterEach
+    void cleanUp() {
+        mailSender.beforeSend = null;
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        emailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void deliversQueuedEmailOverSmtp() throws Exception {
+        assertThat(emailOutboxService.enqueue("student@example.com", "验证码", "<p>123456</p>", null)).isTrue();
+
+        emailOutboxService.dispatchPending();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(1);
+        assertThat(received[0].getSubject()).isEqualTo("验证码");
+        EmailOutbox email = emailOutboxRepository.findAll().get(0);
+        assertThat(email.getStatus()).isEqualTo(EmailOutbox.Status.SENT);
+        assertThat(email.getAttempts()).isEqualTo(1);
+        assertThat(email.getSentAt()).isNotNull();
+    }
+
+    @Test
+    void mergesPendingEmailsWithSameDedupeKey() {
+        emailOutboxService.enqueue("student@example.com", "验证码", "<p>111111</p>", "verify:student@example.com");
+        emailOutboxService.enqueue("student@example.com", "验证码", "<p>222222</p>", "verify:student@example.com");
+
+        List<EmailOutbox> rows = emailOutboxRepository.findAll();
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getBody()).isEqualTo("<p>222222</p>");
+    }
+
+    @Test
+    void concurrentEnqueuesWithSameDedupeKeyLeaveOneRow() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String body = "<p>" + i + "</p>";
+            results.add(executor.submit(() -> {
+                start.await();
+                return emailOutboxService.enqueue("student@example.com", "验证码", body, "verify:student@example.com");
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isTrue();
+        }
+        executor.shutdown();
+
+        assertThat(emailOutboxRepository.findAll()).hasSize(1);
+    }
+
+    @Test
+    void enqueueDoesNotWaitForRowsBeingSent() throws Exception {
+        emailOutboxService.enqueue("student@example.com", "验证码", "<p>111111</p>", "verify:student@example.com");
+
+        // SMTP发送进行中时，同一邮箱再次请求验证码必须立即完成，而不是等待投递批次的行锁
+        List<EmailOutbox.Status> statusDuringSend = new ArrayList<>();
+        mailSender.beforeSend = () -> {
+            statusDuringSend.add(emailOutboxRepository.findAll().get(0).getStatus());
+            CompletableFuture<Boolean> resend = CompletableFuture.supplyAsync(() -> emailOutboxService.enqueue(
+                    "student@example.com", "验证码", "<p>222222</p>", "verify:student@example.com"));
+            try {
+                assertThat(resend.get(5, TimeUnit.SECONDS)).isTrue();
+            } catch (Exception e) {
+                throw new AssertionError("发送期间入队被阻塞", e);
+            }
+        };
+
+        emailOutboxService.dispatchPending();
+
+        assertThat(statusDuringSend).containsExactly(EmailOutbox.Status.SENDING);
+        // 已领取的行不会被覆盖，新验证码作为新的待发送邮件进入下一批
+        assertThat(emailOutboxRepository.countByStatus(EmailOutbox.Status.SENT)).isEqualTo(1);
+        assertThat(emailOutboxRepository.findAll()).filteredOn(e -> e.getStatus() == EmailOutbox.Status.PENDING)
+                .extracting(EmailOutbox::getBody).containsExactly("<p>222222</p>");
+
+        mailSender.beforeSend = null;
+        emailOutboxService.dispatchPending();
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    void schedulesRetryWithBackoffWhenSmtpIsDown() {
+        emailOutboxService.enqueue("student@example.com", "验证码", "<p>123456</p>", null);
+        // 指向没有监听的端口，模拟SMTP不可用
+        mailSender.setPort(1);
+
+        LocalDateTime before = LocalDateTime.now();
+        emailOutboxService.dispatchPending();
+
+        EmailOutbox email = emailOutboxRepository.findAll().get(0);
+        assertThat(email.getStatus()).isEqualTo(EmailOutbox.Status.PENDING);
+        assertThat(email.getAttempts()).isEqualTo(1);
+        assertThat(email.getLastError()).isNotBlank();
+        assertThat(email.getNextAttemptAt()).isAfter(before.plusSeconds(25));
+    }
+
+    /**
+     * 发送前可插入回调的JavaMailSender，用于在SMTP发送进行中时检查数据库状态
+     */
+    static class HookedMailSender extends JavaMailSenderImpl {
+        volatile Runnable beforeSend;
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+            Runnable hook = beforeSend;
+            if (hook != null) {
+                hook.run();
+            }
+            super.doSend(mimeMessages, originalMessages);
+        }
+    }
+
+    @TestConfiguration
+    static class MailConfig {
+        @Bean
+        HookedMailSender mailSender() {
+            HookedMailSender sender = new HookedMailSender();
+            sender.setHost("localhost");
+            sender.setPort(ServerSetupTest.SMTP.getPort());
+            return sender;
+        }
+    }
+}
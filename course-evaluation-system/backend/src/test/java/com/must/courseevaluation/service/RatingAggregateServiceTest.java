@@ -0,0 +1,91 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.dto.CourseDto;
+import com.must.courseevaluation.model.RatingAggregate;
+import com.must.courseevaluation.model.RatingAggregate.TargetType;
+import com.must.courseevaluation.repository.RatingAggregateRepository;
+import com.must.courseevaluation.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RatingAggregateServiceTest {
+
+    private final RatingAggregateRepository ratingAggregateRepository = mock(RatingAggregateRepository.class);
+    private final CacheService cacheService = mock(CacheService.class);
+    private final RatingAggregateService service = new RatingAggregateService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "ratingAggregateRepository", ratingAggregateRepository);
+        ReflectionTestUtils.setField(service, "reviewRepository", mock(ReviewRepository.class));
+        ReflectionTestUtils.setField(service, "cacheService", cacheService);
+        when(ratingAggregateRepository.findForUpdate(any(), anyLong()))
+                .thenAnswer(inv -> Optional.of(new RatingAggregate(inv.getArgument(0), inv.getArgument(1))));
+    }
+
+    @Test
+    void reviewWriteEvictsOnlyRatingCaches() {
+        service.reviewAdded(1L, 2L, 5);
+
+        verify(cacheService).evictRatingCaches(List.of(1L), List.of(2L));
+        verify(cacheService, never()).evictCourseLists(anyCollection());
+        verify(cacheService, never()).evictAllCourseLists();
+    }
+
+    @Test
+    void bulkRemovalEvictsAllTargetsOnce() {
+        Map<Long, Map<Integer, Integer>> courseCounts = new TreeMap<>(Map.of(1L, Map.of(5, 2), 3L, Map.of(4, 1)));
+        Map<Long, Map<Integer, Integer>> teacherCounts = new TreeMap<>(Map.of(2L, Map.of(5, 2, 4, 1)));
+
+        service.reviewsRemoved(courseCounts, teacherCounts);
+
+        verify(ratingAggregateRepository, times(3)).save(any());
+        verify(cacheService, times(1)).evictRatingCaches(anyCollection(), anyCollection());
+        verify(cacheService).evictRatingCaches(Set.of(1L, 3L), Set.of(2L));
+    }
+
+    @Test
+    void cachedListIsOverlaidWithCurrentRatingsWithoutMutation() {
+        CourseDto rated = course(1L);
+        CourseDto unrated = course(2L);
+        List<CourseDto> cached = List.of(rated, unrated);
+        RatingAggregate aggregate = new RatingAggregate(TargetType.COURSE, 1L);
+        aggregate.apply(5, 2);
+        aggregate.apply(4, 1);
+        when(ratingAggregateRepository.findByTargetTypeAndTargetIdIn(eq(TargetType.COURSE), anyCollection()))
+                .thenReturn(List.of(aggregate));
+
+        List<CourseDto> served = service.withCourseRatings(cached);
+
+        assertThat(served).extracting(CourseDto::getAverageRating).containsExactly(4.7, 0.0);
+        assertThat(served).extracting(CourseDto::getReviewCount).containsExactly(3L, 0L);
+        assertThat(served.get(0).getName()).isEqualTo("Course 1");
+        assertThat(rated.getAverageRating()).isNull();
+        assertThat(unrated.getReviewCount()).isNull();
+    }
+
+    private static CourseDto course(Long id) {
+        CourseDto dto = new CourseDto();
+        dto.setId(id);
+        dto.setName("Course " + id);
+        return dto;
+    }
+}
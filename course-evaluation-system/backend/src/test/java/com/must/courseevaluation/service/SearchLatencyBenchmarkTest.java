@@ -0,0 +1,110 @@
+package com.must.courseevaluation.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+
+/**
+ * 课程检索延迟测量，默认不运行：
+ * mvn test -Dtest=SearchLatencyBenchmarkTest -Dsearch.benchmark=true
+ *   [-Dsearch.benchmark.courses=50000] [-Dsearch.benchmark.rounds=500]
+ * 在内嵌PostgreSQL中生成课程数据后，经SearchService（一条排名查询带出本页课程）重复检索，输出p50/p99。
+ * 结果取决于机器和PostgreSQL配置，只用于比较改动前后的量级，不作为断言。
+ */
+// 关闭SQL日志，否则测到的主要是日志输出的耗时
+@DataJpaTest(showSql = false, properties = "logging.level.org.hibernate=WARN")
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(SearchService.class)
+@EnabledIfSystemProperty(named = "search.benchmark", matches = "true")
+class SearchLatencyBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchLatencyBenchmarkTest.class);
+
+    // 单核机器上JIT编译需要较多轮次才能稳定，预热不足时p99测到的是编译耗时
+    private static final int WARMUP_ROUNDS = 200;
+    private static final List<String> KEYWORDS = List.of(
+            "database", "compiler design", "netw", "machine learning", "C123", "statistics theory",
+            "secur", "distributed systems", "graphics", "econ");
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void measureCourseSearchLatency() {
+        int courses = Integer.getInteger("search.benchmark.courses", 50_000);
+        int rounds = Integer.getInteger("search.benchmark.rounds", 500);
+        seed(courses);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            search(i);
+        }
+        long[] nanos = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            search(i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        logger.info("课程检索延迟（{}门课程，{}次）: p50 {} ms, p99 {} ms, max {} ms", courses, rounds,
+                millis(nanos[rounds / 2]), millis(nanos[rounds * 99 / 100]), millis(nanos[rounds - 1]));
+    }
+
+    private void search(int round) {
+        searchService.searchCourses(KEYWORDS.get(round % KEYWORDS.size()), 0, SearchService.DEFAULT_PAGE_SIZE);
+        entityManager.clear();
+    }
+
+    /**
+     * 课程名由20个学科词两两组合（每个学科词出现在约10%的课程名中），简介由2万个合成词随机组成并混入一个学科词，
+     * 使常见关键词命中数千门课程；search_text与Course写入时的拼接方式一致，每门课程有评分聚合行
+     */
+    private void seed(int courses) {
+        jdbcTemplate.update("INSERT INTO faculties (name) VALUES ('Faculty of Information Technology')");
+        jdbcTemplate.update("""
+                WITH words AS (
+                    SELECT ARRAY['algorithm', 'database', 'network', 'compiler', 'system', 'design', 'theory',
+                                 'analysis', 'software', 'machine', 'learning', 'graphics', 'security', 'operating',
+                                 'distributed', 'mathematics', 'statistics', 'physics', 'economics', 'management'] AS w
+                ), generated AS (
+                    SELECT g,
+                           'C' || g AS code,
+                           initcap(w[1 + g % 20]) || ' ' || initcap(w[1 + (g / 20) % 20]) AS name,
+                           (SELECT string_agg('topic' || ((g * 7919 + k * 104729) % 20000), ' ')
+                            FROM generate_series(1, 40) k) || ' ' || w[1 + (g * 7) % 20] AS description
+                    FROM words, generate_series(1, ?) g
+                )
+                INSERT INTO courses (code, name, description, credits, type, faculty_id, search_text)
+                SELECT code, name, description, 3.0, 'ELECTIVE', (SELECT id FROM faculties LIMIT 1),
+                       concat_ws(' ', code, name, description, 'Faculty of Information Technology')
+                FROM generated
+                """, courses);
+        jdbcTemplate.update("INSERT INTO rating_aggregates (target_type, target_id) SELECT 'COURSE', id FROM courses");
+        // 批量写入后GIN索引的新条目还在待合并列表中，每次查询都要顺序扫描；线上由autovacuum合并，这里手动合并
+        jdbcTemplate.queryForList("SELECT gin_clean_pending_list(i.indexrelid) FROM pg_index i " +
+                "JOIN pg_class c ON c.oid = i.indexrelid JOIN pg_am a ON a.oid = c.relam " +
+                "WHERE i.indrelid = 'courses'::regclass AND a.amname = 'gin'");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,123 @@
+package com.must.courseevaluation.service;
+
+import com.must.courseevaluation.dto.CourseDto;
+import com.must.courseevaluation.dto.SearchHitDto;
+import com.must.courseevaluation.dto.SearchPageDto;
+import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.model.Faculty;
+import com.must.courseevaluation.model.RatingAggregate;
+import com.must.courseevaluation.model.Teacher;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 课程检索的相关度排序，在内嵌PostgreSQL上执行真实的全文检索和pg_trgm函数
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(SearchService.class)
+class SearchServiceTest {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Faculty faculty;
+
+    @BeforeEach
+    void seed() {
+        faculty = new Faculty();
+        faculty.setName("Faculty of Information Technology");
+        entityManager.persist(faculty);
+    }
+
+    @Test
+    void longDescriptionDoesNotDiluteTrigramScore() {
+        // 同样只在简介中出现一次关键词，简介长短不应影响得分
+        Course longCourse = persistCourse("CS301", "Systems Programming",
+                "Covers the compiler toolchain. " + "Lectures and weekly lab sessions. ".repeat(60));
+        Course shortCourse = persistCourse("CS302", "Language Tools", "Covers the compiler toolchain.");
+        entityManager.flush();
+        entityManager.clear();
+
+        SearchPageDto<SearchHitDto<CourseDto>> page = searchService.searchCourses("compiler", 0, 10);
+
+        assertThat(page.getItems()).extracting(hit -> hit.getItem().getId())
+                .containsExactlyInAnyOrder(longCourse.getId(), shortCourse.getId());
+        List<SearchHitDto<CourseDto>> hits = page.getItems();
+        assertThat(hits.get(0).getScore()).isCloseTo(hits.get(1).getScore(), within(1e-6));
+    }
+
+    @Test
+    void nameAndCodeMatchesRankAboveDescriptionMatches() {
+        Course inDescription = persistCourse("CS401", "Software Engineering", "Includes a short database module.");
+        Course inName = persistCourse("CS402", "Database Systems", null);
+        Course byCode = persistCourse("DATABASE", "Data Lab", null);
+        entityManager.flush();
+        entityManager.clear();
+
+        SearchPageDto<SearchHitDto<CourseDto>> page = searchService.searchCourses("database", 0, 10);
+
+        assertThat(page.getItems()).extracting(hit -> hit.getItem().getId())
+                .containsExactly(byCode.getId(), inName.getId(), inDescription.getId());
+    }
+
+    @Test
+    void hitsCarryTeacherFacultyAndRatings() {
+        Teacher teacher = new Teacher();
+        teacher.setName("Dr. Chan");
+        teacher.setFaculty(faculty);
+        entityManager.persist(teacher);
+        Course rated = persistCourse("CS501", "Operating Systems", null);
+        rated.setTeacher(teacher);
+        RatingAggregate aggregate = new RatingAggregate(RatingAggregate.TargetType.COURSE, rated.getId());
+        aggregate.setRatingSum(9);
+        aggregate.setReviewCount(2);
+        entityManager.persist(aggregate);
+        Course unrated = persistCourse("CS502", "Operating Labs", null);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<SearchHitDto<CourseDto>> hits = searchService.searchCourses("operating", 0, 10).getItems();
+
+        CourseDto first = hits.get(0).getItem();
+        assertThat(first.getId()).isEqualTo(rated.getId());
+        assertThat(first.getTeacherId()).isEqualTo(teacher.getId());
+        assertThat(first.getTeacherName()).isEqualTo("Dr. Chan");
+        assertThat(first.getFacultyId()).isEqualTo(faculty.getId());
+        assertThat(first.getFacultyName()).isEqualTo("Faculty of Information Technology");
+        assertThat(first.getType()).isEqualTo("ELECTIVE");
+        assertThat(first.getAverageRating()).isEqualTo(4.5);
+        assertThat(first.getReviewCount()).isEqualTo(2);
+        assertThat(hits.get(0).getHighlight()).isEqualTo("<mark>Operating</mark> Systems");
+        // 没有聚合行的课程评分为0
+        CourseDto second = hits.get(1).getItem();
+        assertThat(second.getId()).isEqualTo(unrated.getId());
+        assertThat(second.getTeacherId()).isNull();
+        assertThat(second.getAverageRating()).isEqualTo(0.0);
+        assertThat(second.getReviewCount()).isZero();
+    }
+
+    private Course persistCourse(String code, String name, String description) {
+        Course course = new Course();
+        course.setCode(code);
+        course.setName(name);
+        course.setDescription(description);
+        course.setType(Course.CourseType.ELECTIVE);
+        course.setFaculty(faculty);
+        return entityManager.persist(course);
+    }
+}
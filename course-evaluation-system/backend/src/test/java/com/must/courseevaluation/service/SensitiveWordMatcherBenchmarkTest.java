@@ -0,0 +1,133 @@
+package com.must.courseevaluation.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * 敏感词过滤吞吐量测量，默认不运行：
+ * mvn test -Dtest=SensitiveWordMatcherBenchmarkTest -Dfilter.benchmark=true
+ *   [-Dfilter.benchmark.words=10000] [-Dfilter.benchmark.seconds=5]
+ * 生成中英文混合的敏感词表和一批约500字的评价文本（一半含有一个敏感词），
+ * 分别测量预编译的SensitiveWordMatcher与逐词查找（改造前ContentFilterService的做法：逐词contains判断、逐词正则替换）
+ * 每秒处理的评价数，以及编译词表的耗时。结果只用于比较量级，不作为断言。
+ */
+@EnabledIfSystemProperty(named = "filter.benchmark", matches = "true")
+class SensitiveWordMatcherBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensitiveWordMatcherBenchmarkTest.class);
+
+    private static final int TEXTS = 200;
+    private static final int TEXT_LENGTH = 500;
+
+    @Test
+    void measureFilterThroughput() {
+        int wordCount = Integer.getInteger("filter.benchmark.words", 10_000);
+        int seconds = Integer.getInteger("filter.benchmark.seconds", 5);
+        Random random = new Random(42);
+        List<String> words = generateWords(random, wordCount);
+        List<String> texts = generateTexts(random, words);
+
+        long start = System.nanoTime();
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(words);
+        double compileMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        List<Pattern> patterns = words.stream()
+                .map(word -> Pattern.compile(Pattern.quote(word), Pattern.CASE_INSENSITIVE))
+                .toList();
+        List<String> results = new ArrayList<>();
+        results.add(String.format("编译%d个词: %.1f ms", matcher.size(), compileMillis));
+        results.add(measure("匹配器 containsAny", texts, seconds, text -> matcher.containsAny(text) ? 1 : 0));
+        results.add(measure("匹配器 mask", texts, seconds, text -> matcher.mask(text, '*').length()));
+        results.add(measure("逐词 contains", texts, seconds, text -> {
+            String lower = text.toLowerCase();
+            return words.stream().anyMatch(lower::contains) ? 1 : 0;
+        }));
+        results.add(measure("逐词正则替换", texts, seconds, text -> {
+            String filtered = text;
+            for (Pattern pattern : patterns) {
+                filtered = pattern.matcher(filtered).replaceAll("*");
+            }
+            return filtered.length();
+        }));
+        logger.info("敏感词过滤吞吐量（{}条评价，每条约{}字）:\n  {}", TEXTS, TEXT_LENGTH, String.join("\n  ", results));
+    }
+
+    /**
+     * 先预热与测量同样的时长，再统计测量期间处理的评价数；结果累加到返回值中，避免调用被JIT消除
+     */
+    private static String measure(String name, List<String> texts, int seconds, ToIntFunction<String> filter) {
+        run(texts, seconds, filter);
+        long start = System.nanoTime();
+        long[] counts = run(texts, seconds, filter);
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+        return String.format("%s: %.0f 条/秒 (校验和 %d)", name, counts[0] / elapsed, counts[1]);
+    }
+
+    private static long[] run(List<String> texts, int seconds, ToIntFunction<String> filter) {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long processed = 0;
+        long checksum = 0;
+        while (System.nanoTime() < deadline) {
+            checksum += filter.applyAsInt(texts.get((int) (processed % texts.size())));
+            processed++;
+        }
+        return new long[]{processed, checksum};
+    }
+
+    /**
+     * 一半是2到4个汉字，一半是4到8个小写字母
+     */
+    private static List<String> generateWords(Random random, int count) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < count) {
+            StringBuilder sb = new StringBuilder();
+            if (words.size() % 2 == 0) {
+                int length = 2 + random.nextInt(3);
+                for (int i = 0; i < length; i++) {
+                    sb.append(randomHan(random));
+                }
+            } else {
+                int length = 4 + random.nextInt(5);
+                for (int i = 0; i < length; i++) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+            words.add(sb.toString());
+        }
+        return new ArrayList<>(words);
+    }
+
+    private static List<String> generateTexts(Random random, List<String> words) {
+        List<String> texts = new ArrayList<>(TEXTS);
+        for (int t = 0; t < TEXTS; t++) {
+            StringBuilder sb = new StringBuilder();
+            while (sb.length() < TEXT_LENGTH) {
+                if (random.nextInt(4) == 0) {
+                    sb.append(" Course ").append(random.nextInt(1000)).append(' ');
+                } else {
+                    sb.append(randomHan(random));
+                }
+            }
+            if (t % 2 == 0) {
+                sb.insert(random.nextInt(sb.length()), words.get(random.nextInt(words.size())).toUpperCase());
+            }
+            texts.add(sb.toString());
+        }
+        return texts;
+    }
+
+    // 取常用汉字区间，使随机文本与词表的前缀有足够多的部分重叠
+    private static char randomHan(Random random) {
+        return (char) (0x4E00 + random.nextInt(2000));
+    }
+}
@@ -0,0 +1,86 @@
+package com.must.courseevaluation.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SensitiveWordMatcherTest {
+
+    @Test
+    void masksEveryCharacterOfEachMatch() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("傻瓜", "垃圾"));
+
+        assertThat(matcher.mask("这门课是垃圾，老师说我是傻瓜", '*')).isEqualTo("这门课是**，老师说我是**");
+    }
+
+    @Test
+    void masksOverlappingMatches() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("abc", "cde"));
+
+        assertThat(matcher.mask("xabcdex", '*')).isEqualTo("x*****x");
+    }
+
+    @Test
+    void masksWordsNestedInsideLongerWords() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("bc", "abcd", "c"));
+
+        assertThat(matcher.mask("abcd", '*')).isEqualTo("****");
+        assertThat(matcher.mask("abce", '*')).isEqualTo("a**e");
+        assertThat(matcher.mask("xcx", '*')).isEqualTo("x*x");
+    }
+
+    @Test
+    void matchesAfterFailureTransitions() {
+        // "abx" 走到失败链上的 "bx"
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("abc", "bx"));
+
+        assertThat(matcher.mask("abx", '*')).isEqualTo("a**");
+        assertThat(matcher.mask("aabc", '*')).isEqualTo("a***");
+    }
+
+    @Test
+    void matchesFullWidthAndUpperCaseForms() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("bad word"));
+
+        // 全角字母、全角空格和大写都归一化后匹配，屏蔽保持原文长度
+        assertThat(matcher.mask("so ＢＡＤ　ｗｏｒｄ!", '*')).isEqualTo("so ********!");
+        assertThat(matcher.mask("BAD WORD", '#')).isEqualTo("########");
+    }
+
+    @Test
+    void dictionaryEntriesAreNormalizedToo() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("ＳＰＡＭ"));
+
+        assertThat(matcher.containsAny("no spam here")).isTrue();
+    }
+
+    @Test
+    void returnsSameInstanceWhenNothingMatches() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(List.of("垃圾"));
+        String text = "这门课很好";
+
+        assertThat(matcher.mask(text, '*')).isSameAs(text);
+        assertThat(matcher.containsAny(text)).isFalse();
+    }
+
+    @Test
+    void ignoresBlankAndNullWords() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.compile(Arrays.asList("", "  ", null, "坏"));
+
+        assertThat(matcher.size()).isEqualTo(1);
+        assertThat(matcher.mask("好坏", '*')).isEqualTo("好*");
+    }
+
+    @Test
+    void emptyMatcherLeavesTextUntouched() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.empty();
+
+        assertThat(matcher.size()).isZero();
+        assertThat(matcher.containsAny("任何内容")).isFalse();
+        assertThat(matcher.mask("任何内容", '*')).isEqualTo("任何内容");
+        assertThat(matcher.mask(null, '*')).isNull();
+    }
+}
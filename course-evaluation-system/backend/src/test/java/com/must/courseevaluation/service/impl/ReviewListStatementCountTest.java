@@ -0,0 +1,182 @@
+package com.must.courseevaluation.service.impl;
+
+import com.must.courseevaluation.dto.CursorPageDto;
+import com.must.courseevaluation.dto.ReviewDto;
+import com.must.courseevaluation.model.Course;
+import com.must.courseevaluation.model.Faculty;
+import com.must.courseevaluation.model.Review;
+import com.must.courseevaluation.model.Teacher;
+import com.must.courseevaluation.model.User;
+import com.must.courseevaluation.security.UserDetailsServiceImpl;
+import com.must.courseevaluation.service.AsyncEmailService;
+import com.must.courseevaluation.service.ContentFilterService;
+import com.must.courseevaluation.service.RatingAggregateService;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 评价列表接口的SQL语句数：用Hibernate统计计数，语句数必须与评价条数无关，防止DTO转换时重新出现N+1懒加载
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureEmbeddedDatabase(provider = ZONKY)
+@Import(ReviewServiceImpl.class)
+class ReviewListStatementCountTest {
+
+    private static final int REVIEWS_PER_COURSE = 6;
+
+    @Autowired
+    private ReviewServiceImpl reviewService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private ContentFilterService contentFilterService;
+
+    @MockBean
+    private RatingAggregateService ratingAggregateService;
+
+    @MockBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    @MockBean
+    private AsyncEmailService asyncEmailService;
+
+    private Statistics statistics;
+    private Course course;
+    private Teacher teacher;
+    private User student;
+
+    @BeforeEach
+    void seed() {
+        Faculty faculty = new Faculty();
+        faculty.setName("计算机科学与技术学院");
+        entityManager.persist(faculty);
+
+        teacher = new Teacher();
+        teacher.setName("王教授");
+        teacher.setFaculty(faculty);
+        entityManager.persist(teacher);
+
+        course = persistCourse("CS101", "程序设计基础", faculty);
+        Course otherCourse = persistCourse("CS102", "数据结构", faculty);
+
+        // 每条评价来自不同用户，懒加载时每条都会多出一次用户查询
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < REVIEWS_PER_COURSE; i++) {
+            User author = persistUser("student" + i);
+            if (i == 0) {
+                student = author;
+            }
+            persistReview(author, course, i < 2, now.minusMinutes(i));
+            persistReview(author, otherCourse, false, now.minusMinutes(i));
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listAllReviewsUsesOneStatement() {
+        List<ReviewDto> reviews = countStatements(1, () -> reviewService.getAllReviews());
+        assertThat(reviews).hasSize(REVIEWS_PER_COURSE * 2);
+    }
+
+    @Test
+    void listReviewsByCourseUsesTwoStatements() {
+        // 课程存在性检查 + 评价列表
+        List<ReviewDto> reviews = countStatements(2, () -> reviewService.getReviewsByCourse(course.getId()));
+        assertThat(reviews).hasSize(REVIEWS_PER_COURSE);
+    }
+
+    @Test
+    void listReviewsByTeacherUsesOneStatement() {
+        List<ReviewDto> reviews = countStatements(1, () -> reviewService.getReviewsByTeacher(teacher.getId()));
+        assertThat(reviews).hasSize(REVIEWS_PER_COURSE * 2);
+    }
+
+    @Test
+    void listReviewsByUserUsesTwoStatements() {
+        List<ReviewDto> reviews = countStatements(2, () -> reviewService.getReviewsByUser(student.getId()));
+        assertThat(reviews).hasSize(2);
+    }
+
+    @Test
+    void courseFeedPageUsesAtMostThreeStatements() {
+        // 存在性检查 + 置顶段 + 非置顶段补齐
+        CursorPageDto<ReviewDto> page = countStatements(3,
+                () -> reviewService.getReviewFeedByCourse(course.getId(), null, 4));
+        assertThat(page.getItems()).hasSize(4);
+
+        CursorPageDto<ReviewDto> next = countStatements(2,
+                () -> reviewService.getReviewFeedByCourse(course.getId(), page.getNextCursor(), 4));
+        assertThat(next.getItems()).hasSize(REVIEWS_PER_COURSE - 4);
+    }
+
+    @Test
+    void teacherFeedPageUsesAtMostThreeStatements() {
+        CursorPageDto<ReviewDto> page = countStatements(3,
+                () -> reviewService.getReviewFeedByTeacher(teacher.getId(), null, 10));
+        assertThat(page.getItems()).hasSize(10);
+    }
+
+    private <T> T countStatements(long expected, Supplier<T> call) {
+        entityManager.clear();
+        statistics.clear();
+        T result = call.get();
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL语句数")
+                .isEqualTo(expected);
+        return result;
+    }
+
+    private Course persistCourse(String code, String name, Faculty faculty) {
+        Course course = new Course();
+        course.setCode(code);
+        course.setName(name);
+        course.setType(Course.CourseType.COMPULSORY);
+        course.setFaculty(faculty);
+        course.setTeacher(teacher);
+        return entityManager.persist(course);
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("{noop}password");
+        user.setEmail(username + "@example.com");
+        user.setRole(User.Role.ROLE_STUDENT);
+        return entityManager.persist(user);
+    }
+
+    private void persistReview(User author, Course course, boolean pinned, LocalDateTime createdAt) {
+        Review review = new Review();
+        review.setContent("内容");
+        review.setRating(4);
+        review.setUser(author);
+        review.setCourse(course);
+        review.setPinned(pinned);
+        review.setCreatedAt(createdAt);
+        entityManager.persist(review);
+    }
+}
@@ -0,0 +1,75 @@
+package com.must.courseevaluation.service.impl;
+
+import com.must.courseevaluation.exception.ResourceNotFoundException;
+import com.must.courseevaluation.model.RatingAggregate.TargetType;
+import com.must.courseevaluation.repository.CourseRepository;
+import com.must.courseevaluation.repository.TeacherRepository;
+import com.must.courseevaluation.service.RatingAggregateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewServiceImplTest {
+
+    private final RatingAggregateService ratingAggregateService = mock(RatingAggregateService.class);
+    private final CourseRepository courseRepository = mock(CourseRepository.class);
+    private final TeacherRepository teacherRepository = mock(TeacherRepository.class);
+    private final ReviewServiceImpl service = new ReviewServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "ratingAggregateService", ratingAggregateService);
+        ReflectionTestUtils.setField(service, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(service, "teacherRepository", teacherRepository);
+        // 默认没有聚合行（mock对Map返回值默认给空Map而不是null）
+        when(ratingAggregateService.getRatings(any(), anyLong())).thenReturn(null);
+    }
+
+    @Test
+    void teacherRatingsComeFromAggregateWithoutExistenceCheck() {
+        Map<String, Object> ratings = Map.of("averageRating", 4.5, "totalReviews", 2);
+        when(ratingAggregateService.getRatings(TargetType.TEACHER, 7L)).thenReturn(ratings);
+
+        assertThat(service.getTeacherRatings(7L)).isSameAs(ratings);
+        verify(teacherRepository, never()).existsById(7L);
+    }
+
+    @Test
+    void teacherWithoutReviewsHasEmptyRatings() {
+        when(teacherRepository.existsById(7L)).thenReturn(true);
+
+        Map<String, Object> ratings = service.getTeacherRatings(7L);
+
+        assertThat(ratings).containsEntry("averageRating", 0.0).containsEntry("totalReviews", 0);
+        assertThat((Map<?, ?>) ratings.get("ratingDistribution")).isEmpty();
+    }
+
+    @Test
+    void unknownTeacherIsNotFound() {
+        when(teacherRepository.existsById(404L)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.getTeacherRatings(404L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("404");
+    }
+
+    @Test
+    void unknownCourseIsNotFound() {
+        when(courseRepository.existsById(404L)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.getCourseRatings(404L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("404");
+    }
+}
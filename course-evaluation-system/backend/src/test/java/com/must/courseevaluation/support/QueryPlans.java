@@ -0,0 +1,92 @@
+package com.must.courseevaluation.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 记录Hibernate发出的SQL，并在PostgreSQL上取其执行计划。
+ * 测试类通过属性 spring.jpa.properties.hibernate.session_factory.statement_inspector 指定本类，
+ * 执行一次仓库方法后用 lastStatement 取到实际SQL，再交给 explain。
+ * 只在单线程的测试事务中使用。
+ */
+public class QueryPlans implements StatementInspector {
+
+    public static final String INSPECTOR_PROPERTY =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.must.courseevaluation.support.QueryPlans";
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static String lastStatement() {
+        return lastStatementContaining("");
+    }
+
+    /**
+     * 最近一条包含给定片段的SQL，用于跳过同一次调用中的其他语句（如分页后的计数查询）
+     */
+    public static String lastStatementContaining(String fragment) {
+        for (int i = STATEMENTS.size() - 1; i >= 0; i--) {
+            if (STATEMENTS.get(i).contains(fragment)) {
+                return STATEMENTS.get(i);
+            }
+        }
+        throw new IllegalStateException("没有记录到包含 " + fragment + " 的SQL");
+    }
+
+    /**
+     * 以通用计划（参数不代入具体值）解释SQL，并禁用顺序扫描、显式排序、哈希和归并连接：
+     * 测试表数据很少，代价比较没有意义，这里只检查索引能否满足查询的过滤、排序和连接。
+     * JDBC驱动不接受语句中的 $n 占位符，因此先在服务端 PREPARE，再 EXPLAIN EXECUTE
+     */
+    public static String explain(JdbcTemplate jdbcTemplate, String sql) {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL enable_sort = off");
+        jdbcTemplate.execute("SET LOCAL enable_hashjoin = off");
+        jdbcTemplate.execute("SET LOCAL enable_mergejoin = off");
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        String numbered = numberParameters(sql);
+        int parameterCount = (int) numbered.chars().filter(c -> c == '$').count();
+        jdbcTemplate.execute("PREPARE explained_statement AS " + numbered);
+        try {
+            String arguments = parameterCount == 0 ? ""
+                    : "(" + String.join(", ", Collections.nCopies(parameterCount, "NULL")) + ")";
+            List<String> lines = jdbcTemplate.queryForList("EXPLAIN EXECUTE explained_statement" + arguments, String.class);
+            return String.join("\n", lines);
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE explained_statement");
+        }
+    }
+
+    /**
+     * JDBC的 ? 占位符改为PostgreSQL的 $n
+     */
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        boolean inLiteral = false;
+        int index = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (c == '?' && !inLiteral) {
+                numbered.append('$').append(++index);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+}
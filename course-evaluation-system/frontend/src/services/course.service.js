@@ -81,6 +81,14 @@ class CourseService {
       })
   }
   
+  // 搜索框自动补全（课程、教师、院系），由后端内存索引直接返回
+  autocomplete(keyword, limit = 8) {
+    return http.get('search/autocomplete', {
+      params: { q: keyword, limit },
+      headers: { 'Skip-Auth': true }
+    })
+  }
+  
   createCourse(data) {
     return http.post('courses', data)
   }